@@ -0,0 +1,71 @@
+package api;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 💱 Tabla de conversión de monedas para comparar precios entre marketplaces.
+ *
+ * Cada tasa indica cuántos USD vale una unidad de la moneda. Son valores de referencia
+ * que se pueden actualizar en tiempo de ejecución con {@link #setRate} o al arrancar
+ * con {@code -Dprims.fx.EUR=1.08}.
+ */
+public final class CurrencyRates {
+
+    private static final Map<String, Double> USD_POR_UNIDAD = new ConcurrentHashMap<>();
+
+    static {
+        USD_POR_UNIDAD.put("USD", 1.0);
+        USD_POR_UNIDAD.put("EUR", 1.08);
+        USD_POR_UNIDAD.put("GBP", 1.27);
+        USD_POR_UNIDAD.put("CHF", 1.12);
+        USD_POR_UNIDAD.put("PLN", 0.25);
+        USD_POR_UNIDAD.put("CAD", 0.73);
+        USD_POR_UNIDAD.put("AUD", 0.66);
+
+        for (String moneda : USD_POR_UNIDAD.keySet()) {
+            String valor = System.getProperty("prims.fx." + moneda);
+            if (valor != null) {
+                try {
+                    USD_POR_UNIDAD.put(moneda, Double.parseDouble(valor));
+                } catch (NumberFormatException ignored) {
+                    // se mantiene la tasa por defecto
+                }
+            }
+        }
+    }
+
+    private CurrencyRates() {
+    }
+
+    public static void setRate(String moneda, double usdPorUnidad) {
+        if (usdPorUnidad <= 0) {
+            throw new IllegalArgumentException("La tasa de " + moneda + " debe ser positiva");
+        }
+        USD_POR_UNIDAD.put(moneda.toUpperCase(Locale.ROOT), usdPorUnidad);
+    }
+
+    public static boolean isKnown(String moneda) {
+        return moneda != null && USD_POR_UNIDAD.containsKey(moneda.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Convierte un monto entre monedas. Si alguna moneda no está en la tabla, devuelve null.
+     */
+    public static Double convert(double monto, String desde, String hacia) {
+        if (desde == null || hacia == null) {
+            return null;
+        }
+        if (desde.equalsIgnoreCase(hacia)) {
+            return monto;
+        }
+
+        Double origen = USD_POR_UNIDAD.get(desde.toUpperCase(Locale.ROOT));
+        Double destino = USD_POR_UNIDAD.get(hacia.toUpperCase(Locale.ROOT));
+        if (origen == null || destino == null) {
+            return null;
+        }
+        return monto * origen / destino;
+    }
+}
@@ -0,0 +1,70 @@
+package api;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Respuesta HTTP con el cuerpo ya resuelto: descomprimido (gzip/deflate), leído desde
+ * la caché en disco o recuperado tras un 304. Los parsers la tratan igual que una
+ * respuesta directa de la red.
+ */
+final class DecodedResponse<B> implements HttpResponse<B> {
+
+    private final HttpRequest request;
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final B body;
+
+    DecodedResponse(HttpRequest request, int statusCode, HttpHeaders headers, B body) {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.headers = headers != null ? headers : HttpHeaders.of(Map.of(), (nombre, valor) -> true);
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public HttpRequest request() {
+        return request;
+    }
+
+    @Override
+    public Optional<HttpResponse<B>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public B body() {
+        return body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+        return request.uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return request.version().orElse(HttpClient.Version.HTTP_1_1);
+    }
+}
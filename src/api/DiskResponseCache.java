@@ -0,0 +1,486 @@
+package api;
+
+import utils.ErrorHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 💾 Caché en disco de respuestas HTTP de eBay (detalle de items y búsquedas), por URL.
+ *
+ * Los cuerpos se agregan al final de un archivo de segmento ({@code responses.seg}) y cada
+ * escritura deja una línea en el índice ({@code responses.idx}) con su posición, ETag,
+ * Last-Modified, vigencia y último uso. Al arrancar se lee el índice (la última línea de cada
+ * URL gana), así un reinicio no vuelve a descargar lo que sigue vigente. Las entradas vencidas
+ * se revalidan con If-None-Match / If-Modified-Since cuando eBay envió esos valores.
+ *
+ * El segmento se compacta (al arrancar y mientras la aplicación corre) cuando más de la
+ * mitad son cuerpos reemplazados o descartados por falta de uso.
+ *
+ * Por defecto vive en {@code ~/.prims/http-cache}; se puede cambiar con
+ * {@code -Dprims.cache.dir=...} o desactivar con {@code -Dprims.httpcache.enabled=false}.
+ */
+final class DiskResponseCache {
+
+    private static final String SEGMENTO = "responses.seg";
+    private static final String INDICE = "responses.idx";
+
+    // Se compacta si más de la mitad del segmento son cuerpos reemplazados o descartados
+    private static final long MIN_BYTES_COMPACTAR = 8L * 1024 * 1024;
+
+    // ... o si el índice tiene muchas más líneas que entradas vivas
+    private static final long MIN_LINEAS_COMPACTAR = 10_000;
+
+    // Las entradas sin uso por más de este tiempo se descartan
+    private static final Duration EDAD_MAXIMA = Duration.ofDays(7);
+
+    // El último uso se anota en el índice como mucho una vez por hora y entrada
+    private static final long INTERVALO_USO_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final ScheduledExecutorService MANTENIMIENTO = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-http-mantenimiento");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Una respuesta guardada: dónde está su cuerpo y cómo revalidarla.
+     */
+    static final class Entrada {
+        final long offset;
+        final int length;
+        final String etag;
+        final String lastModified;
+        final long guardadoEn;
+        final long vigenciaMillis;
+
+        // Compactación del segmento a la que corresponde el offset
+        final int generacion;
+
+        // Último uso: el de memoria y el último anotado en el índice
+        volatile long usadoEn;
+        volatile long usadoEnIndice;
+
+        Entrada(long offset, int length, String etag, String lastModified,
+                long guardadoEn, long vigenciaMillis, long usadoEn, int generacion) {
+            this.offset = offset;
+            this.length = length;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.guardadoEn = guardadoEn;
+            this.vigenciaMillis = vigenciaMillis;
+            this.usadoEn = usadoEn;
+            this.usadoEnIndice = usadoEn;
+            this.generacion = generacion;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() - guardadoEn < vigenciaMillis;
+        }
+
+        boolean isRevalidable() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    private final Path directorio;
+    private final Map<String, Entrada> indice = new ConcurrentHashMap<>();
+    private FileChannel segmento;
+    private BufferedWriter escritorIndice;
+    private volatile boolean activo;
+
+    // Bytes del segmento que pertenecen a entradas vivas y líneas escritas en el índice
+    private long bytesVivos;
+    private long lineasIndice;
+    private boolean compactacionPendiente;
+
+    // Cada compactación mueve los cuerpos: las lecturas no pueden cruzarse con ella y las
+    // entradas de una generación anterior ya no apuntan a nada válido
+    private final ReentrantReadWriteLock lockSegmento = new ReentrantReadWriteLock();
+    private volatile int generacion;
+
+    private DiskResponseCache(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    /**
+     * Abre la caché en el directorio configurado. Si no se puede abrir queda desactivada
+     * y todas las peticiones van a la red como antes.
+     */
+    static DiskResponseCache abrirPorDefecto() {
+        String dir = System.getProperty("prims.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".prims", "http-cache").toString());
+        DiskResponseCache cache = new DiskResponseCache(Paths.get(dir));
+
+        if (Boolean.parseBoolean(System.getProperty("prims.httpcache.enabled", "true"))) {
+            try {
+                cache.abrir();
+            } catch (IOException e) {
+                ErrorHandler.logWarning("💾 No se pudo abrir la caché HTTP en " + dir + ": " + e.getMessage());
+            }
+        }
+        return cache;
+    }
+
+    private synchronized void abrir() throws IOException {
+        Files.createDirectories(directorio);
+        Path seg = directorio.resolve(SEGMENTO);
+        Path idx = directorio.resolve(INDICE);
+
+        cargarIndice(idx, Files.exists(seg) ? Files.size(seg) : 0);
+        abrirArchivos();
+        activo = true;
+        compactarSiConviene();
+
+        // Las entradas también envejecen mientras la aplicación sigue abierta
+        MANTENIMIENTO.scheduleWithFixedDelay(this::compactarSiConviene, 1, 1, TimeUnit.HOURS);
+
+        System.out.println("💾 Caché HTTP en disco: " + indice.size() + " respuestas en " + directorio);
+    }
+
+    private void abrirArchivos() throws IOException {
+        segmento = FileChannel.open(directorio.resolve(SEGMENTO),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        escritorIndice = Files.newBufferedWriter(directorio.resolve(INDICE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Entrada guardada para la URL; cuenta como uso (ver {@link #EDAD_MAXIMA}).
+     */
+    Optional<Entrada> get(String url) {
+        if (!activo) {
+            return Optional.empty();
+        }
+
+        Entrada entrada = indice.get(url);
+        if (entrada != null) {
+            long ahora = System.currentTimeMillis();
+            entrada.usadoEn = ahora;
+            if (ahora - entrada.usadoEnIndice >= INTERVALO_USO_MS) {
+                anotarUso(url, entrada);
+            }
+        }
+        return Optional.ofNullable(entrada);
+    }
+
+    /**
+     * Lee el cuerpo de una entrada; devuelve null si el segmento no se puede leer.
+     */
+    byte[] leer(Entrada entrada) {
+        lockSegmento.readLock().lock();
+        try {
+            if (entrada.generacion != generacion) {
+                return null; // movida o descartada por una compactación
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(entrada.length);
+            long posicion = entrada.offset;
+            while (buffer.hasRemaining()) {
+                int leidos = segmento.read(buffer, posicion);
+                if (leidos < 0) {
+                    return null;
+                }
+                posicion += leidos;
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            ErrorHandler.logWarning("💾 Error leyendo la caché HTTP: " + e.getMessage());
+            return null;
+        } finally {
+            lockSegmento.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega la petición condicional a partir del ETag / Last-Modified guardados.
+     */
+    HttpRequest condicional(HttpRequest request, Entrada entrada) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (nombre, valor) -> true);
+        if (entrada.etag != null) {
+            builder.header("If-None-Match", entrada.etag);
+        }
+        if (entrada.lastModified != null) {
+            builder.header("If-Modified-Since", entrada.lastModified);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Guarda una respuesta 200. Respeta {@code Cache-Control: no-store}.
+     */
+    synchronized void put(String url, byte[] cuerpo, HttpHeaders headers, Duration vigenciaPorDefecto) {
+        if (!activo || cuerpo == null || noStore(headers)) {
+            return;
+        }
+
+        try {
+            long offset = segmento.size();
+            ByteBuffer buffer = ByteBuffer.wrap(cuerpo);
+            long posicion = offset;
+            while (buffer.hasRemaining()) {
+                posicion += segmento.write(buffer, posicion);
+            }
+
+            Entrada entrada = new Entrada(offset, cuerpo.length,
+                    headers.firstValue("ETag").orElse(null),
+                    headers.firstValue("Last-Modified").orElse(null),
+                    System.currentTimeMillis(),
+                    vigencia(headers, vigenciaPorDefecto),
+                    System.currentTimeMillis(),
+                    generacion);
+            Entrada reemplazada = registrar(url, entrada);
+            bytesVivos += entrada.length - (reemplazada != null ? reemplazada.length : 0);
+            programarCompactacionSiConviene();
+        } catch (IOException e) {
+            ErrorHandler.logWarning("💾 Error escribiendo en la caché HTTP: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tras un 304 el cuerpo sigue siendo válido: sólo se renueva la vigencia en el índice.
+     */
+    synchronized void renovar(String url, Entrada anterior, HttpHeaders headers, Duration vigenciaPorDefecto) {
+        if (!activo || anterior.generacion != generacion) {
+            return;
+        }
+
+        Entrada renovada = new Entrada(anterior.offset, anterior.length,
+                headers.firstValue("ETag").orElse(anterior.etag),
+                headers.firstValue("Last-Modified").orElse(anterior.lastModified),
+                System.currentTimeMillis(),
+                vigencia(headers, vigenciaPorDefecto),
+                System.currentTimeMillis(),
+                generacion);
+        try {
+            registrar(url, renovada);
+        } catch (IOException e) {
+            ErrorHandler.logWarning("💾 Error actualizando la caché HTTP: " + e.getMessage());
+        }
+    }
+
+    private Entrada registrar(String url, Entrada entrada) throws IOException {
+        escribirLinea(url, entrada);
+        return indice.put(url, entrada);
+    }
+
+    private synchronized void anotarUso(String url, Entrada entrada) {
+        if (!activo || indice.get(url) != entrada) {
+            return;
+        }
+        try {
+            entrada.usadoEnIndice = entrada.usadoEn;
+            escribirLinea(url, entrada);
+        } catch (IOException e) {
+            ErrorHandler.logWarning("💾 Error actualizando la caché HTTP: " + e.getMessage());
+        }
+    }
+
+    private void escribirLinea(String url, Entrada entrada) throws IOException {
+        escritorIndice.write(lineaIndice(url, entrada));
+        escritorIndice.newLine();
+        escritorIndice.flush();
+        lineasIndice++;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 📇 ÍNDICE Y COMPACTACIÓN
+    // ═══════════════════════════════════════════════════════
+
+    // Formato: url \t offset \t length \t etag \t lastModified \t guardadoEn \t vigenciaMillis \t usadoEn
+    private static String lineaIndice(String url, Entrada e) {
+        return String.join("\t", url, Long.toString(e.offset), Integer.toString(e.length),
+                valorOGuion(e.etag), valorOGuion(e.lastModified),
+                Long.toString(e.guardadoEn), Long.toString(e.vigenciaMillis), Long.toString(e.usadoEn));
+    }
+
+    private void cargarIndice(Path idx, long tamanoSegmento) throws IOException {
+        if (!Files.exists(idx)) {
+            return;
+        }
+
+        List<String> lineas = Files.readAllLines(idx, StandardCharsets.UTF_8);
+        for (String linea : lineas) {
+            String[] campos = linea.split("\t", -1);
+            // Las líneas de 7 campos son de antes de guardar el último uso
+            if (campos.length != 7 && campos.length != 8) {
+                continue; // línea cortada por un cierre abrupto
+            }
+            try {
+                long guardadoEn = Long.parseLong(campos[5]);
+                Entrada entrada = new Entrada(
+                        Long.parseLong(campos[1]),
+                        Integer.parseInt(campos[2]),
+                        guionONull(campos[3]),
+                        guionONull(campos[4]),
+                        guardadoEn,
+                        Long.parseLong(campos[6]),
+                        campos.length == 8 ? Long.parseLong(campos[7]) : guardadoEn,
+                        generacion);
+                if (entrada.offset + entrada.length <= tamanoSegmento) {
+                    indice.put(campos[0], entrada);
+                }
+            } catch (NumberFormatException ignored) {
+                // Línea corrupta: se ignora
+            }
+        }
+
+        lineasIndice = lineas.size();
+        bytesVivos = indice.values().stream().mapToLong(e -> e.length).sum();
+    }
+
+    /**
+     * Tras cada put: si ya conviene compactar, lo hace en segundo plano para no
+     * demorar la respuesta que se acaba de guardar.
+     */
+    private void programarCompactacionSiConviene() throws IOException {
+        if (!compactacionPendiente && conviene(segmento.size())) {
+            compactacionPendiente = true;
+            MANTENIMIENTO.execute(this::compactarSiConviene);
+        }
+    }
+
+    private boolean conviene(long tamanoSegmento) {
+        boolean segmentoConMuertos = tamanoSegmento >= MIN_BYTES_COMPACTAR && bytesVivos * 2 <= tamanoSegmento;
+        boolean indiceConMuertos = lineasIndice >= MIN_LINEAS_COMPACTAR && lineasIndice > 4L * indice.size();
+        return segmentoConMuertos || indiceConMuertos;
+    }
+
+    /**
+     * Descarta las entradas sin uso por más de {@link #EDAD_MAXIMA} y, si más de la mitad
+     * del segmento (o del índice) quedó muerto, reescribe ambos sólo con lo vivo.
+     */
+    private synchronized void compactarSiConviene() {
+        compactacionPendiente = false;
+        if (!activo) {
+            return;
+        }
+
+        long limite = System.currentTimeMillis() - EDAD_MAXIMA.toMillis();
+        indice.values().removeIf(e -> {
+            if (e.usadoEn >= limite) {
+                return false;
+            }
+            bytesVivos -= e.length;
+            return true;
+        });
+
+        lockSegmento.writeLock().lock();
+        try {
+            long tamano = segmento.size();
+            if (!conviene(tamano)) {
+                return;
+            }
+
+            segmento.close();
+            escritorIndice.close();
+            try {
+                compactar();
+            } finally {
+                abrirArchivos();
+            }
+            System.out.println("🧹 Caché HTTP compactada: " + tamano + " → " + segmento.size() + " bytes");
+        } catch (IOException e) {
+            // Sin segmento o índice utilizables no se sigue escribiendo encima
+            activo = false;
+            indice.clear();
+            ErrorHandler.logWarning("💾 Error compactando la caché HTTP, queda desactivada: " + e.getMessage());
+        } finally {
+            lockSegmento.writeLock().unlock();
+        }
+    }
+
+    // Llamar con el lock de escritura tomado y el segmento y el índice cerrados
+    private void compactar() throws IOException {
+        Path seg = directorio.resolve(SEGMENTO);
+        Path idx = directorio.resolve(INDICE);
+        Path segNuevo = directorio.resolve(SEGMENTO + ".tmp");
+        Path idxNuevo = directorio.resolve(INDICE + ".tmp");
+        int nuevaGeneracion = generacion + 1;
+
+        Map<String, Entrada> movidas = new HashMap<>();
+        try (FileChannel origen = FileChannel.open(seg, StandardOpenOption.READ);
+             FileChannel destino = FileChannel.open(segNuevo, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             BufferedWriter escritor = Files.newBufferedWriter(idxNuevo, StandardCharsets.UTF_8)) {
+
+            for (Map.Entry<String, Entrada> par : indice.entrySet()) {
+                Entrada vieja = par.getValue();
+                long nuevoOffset = destino.position();
+                origen.transferTo(vieja.offset, vieja.length, destino);
+
+                Entrada movida = new Entrada(nuevoOffset, vieja.length, vieja.etag, vieja.lastModified,
+                        vieja.guardadoEn, vieja.vigenciaMillis, vieja.usadoEn, nuevaGeneracion);
+                movidas.put(par.getKey(), movida);
+                escritor.write(lineaIndice(par.getKey(), movida));
+                escritor.newLine();
+            }
+        }
+
+        Files.move(segNuevo, seg, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(idxNuevo, idx, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        indice.putAll(movidas);
+        generacion = nuevaGeneracion;
+        lineasIndice = movidas.size();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔧 UTILIDADES
+    // ═══════════════════════════════════════════════════════
+
+    private static boolean noStore(HttpHeaders headers) {
+        return headers.allValues("Cache-Control").stream()
+                .anyMatch(v -> v.toLowerCase().contains("no-store"));
+    }
+
+    /**
+     * Usa {@code Cache-Control: max-age} si eBay lo envía; si no, la vigencia por defecto.
+     */
+    private static long vigencia(HttpHeaders headers, Duration porDefecto) {
+        for (String valor : headers.allValues("Cache-Control")) {
+            for (String directiva : valor.split(",")) {
+                String d = directiva.trim().toLowerCase();
+                if (d.startsWith("max-age=")) {
+                    try {
+                        return Duration.ofSeconds(Long.parseLong(d.substring(8))).toMillis();
+                    } catch (NumberFormatException ignored) {
+                        // se usa la vigencia por defecto
+                    }
+                }
+            }
+        }
+        return porDefecto.toMillis();
+    }
+
+    private static String valorOGuion(String valor) {
+        return valor == null || valor.isEmpty() ? "-" : valor;
+    }
+
+    private static String guionONull(String valor) {
+        return "-".equals(valor) ? null : valor;
+    }
+}
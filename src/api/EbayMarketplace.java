@@ -0,0 +1,72 @@
+package api;
+
+import entities.Marketplace;
+
+import java.util.Locale;
+
+/**
+ * 🌍 Marketplaces de eBay soportados por la Browse API, con su moneda local.
+ *
+ * Se relacionan con {@link Marketplace} a través de {@code countryCode}
+ * (código ISO de dos letras; también se acepta el id completo, p. ej. "EBAY_DE").
+ */
+public enum EbayMarketplace {
+    US("EBAY_US", "USD"),
+    GB("EBAY_GB", "GBP"),
+    DE("EBAY_DE", "EUR"),
+    FR("EBAY_FR", "EUR"),
+    IT("EBAY_IT", "EUR"),
+    ES("EBAY_ES", "EUR"),
+    AT("EBAY_AT", "EUR"),
+    BE("EBAY_BE", "EUR"),
+    NL("EBAY_NL", "EUR"),
+    IE("EBAY_IE", "EUR"),
+    CH("EBAY_CH", "CHF"),
+    PL("EBAY_PL", "PLN"),
+    CA("EBAY_CA", "CAD"),
+    AU("EBAY_AU", "AUD");
+
+    private final String marketplaceId;
+    private final String currency;
+
+    EbayMarketplace(String marketplaceId, String currency) {
+        this.marketplaceId = marketplaceId;
+        this.currency = currency;
+    }
+
+    /**
+     * Valor para la cabecera {@code X-EBAY-C-MARKETPLACE-ID}.
+     */
+    public String getMarketplaceId() {
+        return marketplaceId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Busca el marketplace por código de país; devuelve null si no está soportado.
+     */
+    public static EbayMarketplace fromCountryCode(String countryCode) {
+        if (countryCode == null || countryCode.isBlank()) {
+            return null;
+        }
+
+        String codigo = countryCode.trim().toUpperCase(Locale.ROOT);
+        if (codigo.equals("UK")) {
+            codigo = "GB";
+        }
+
+        for (EbayMarketplace m : values()) {
+            if (m.name().equals(codigo) || m.marketplaceId.equals(codigo)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    public static EbayMarketplace fromMarketplace(Marketplace marketplace) {
+        return marketplace != null ? fromCountryCode(marketplace.getCountryCode()) : null;
+    }
+}
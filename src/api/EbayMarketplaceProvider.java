@@ -0,0 +1,72 @@
+package api;
+
+import entities.Producto;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * 🛒 Proveedor real: delega en {@link conect_API_eBay} (Browse API de eBay), con su
+ * caché en disco, límites de tasa, reintentos y circuit breakers.
+ */
+public class EbayMarketplaceProvider implements MarketplaceProvider {
+
+    public static final String ID = "ebay";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public CompletableFuture<SearchPage<Producto>> searchPage(
+            String token, String query, int offset, int limit, SearchFilter filter) {
+        return conect_API_eBay.browsePageAsync(token, query, offset, limit, filter);
+    }
+
+    @Override
+    public CompletableFuture<ItemDetail> itemDetail(String token, String itemId) {
+        return conect_API_eBay.additionalInfoAsync(token, itemId);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Double>> prices(String token, Collection<String> itemIds) {
+        return conect_API_eBay.refreshPricesAsync(token, itemIds);
+    }
+
+    @Override
+    public CompletableFuture<List<ItemSummary>> sellerItems(String token, String seller, int limit) {
+        return conect_API_eBay.sellerItemsAsync(token, seller, limit);
+    }
+
+    @Override
+    public CompletableFuture<OldestListing> oldestSellerItem(String token, String seller, String categoryId) {
+        return conect_API_eBay.oldestSellerItemAsync(token, seller, categoryId);
+    }
+
+    @Override
+    public CompletableFuture<List<Double>> marketPrices(String token, String query) {
+        // Comparte la consulta con otras iguales que estén en curso
+        return conect_API_eBay.obtenerPreciosDelMercadoAsync(query, token);
+    }
+
+    @Override
+    public Stream<Producto> searchStream(String token, String query, int pageSize, SearchFilter filter) {
+        return conect_API_eBay.searchStream(token, query, pageSize, filter);
+    }
+
+    /**
+     * 🌍 Búsqueda en varios sitios de eBay a la vez (propia de este proveedor).
+     *
+     * @see conect_API_eBay#searchMarketplacesStream
+     */
+    public Stream<Producto> searchMarketplaces(
+            String token, String query, int pageSize, SearchFilter filter,
+            Collection<EbayMarketplace> marketplaces, Duration timeoutPerMarketplace) {
+        return conect_API_eBay.searchMarketplacesStream(token, query, pageSize, filter, marketplaces, timeoutPerMarketplace);
+    }
+}
@@ -0,0 +1,423 @@
+package api;
+
+import utils.ErrorHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏳ Limitador de peticiones hacia eBay.
+ *
+ * Cada familia de endpoints tiene su propio token bucket (ráfaga + tasa sostenida);
+ * la cuota diaria se cuenta por recurso de eBay, que puede cubrir varias familias
+ * (búsqueda y detalle gastan la misma cuota de {@code buy.browse}). Toda petición
+ * saliente debe pasar por {@link #acquire} o {@link #acquireAsync} antes de enviarse.
+ *
+ * Los valores por defecto se pueden ajustar con propiedades del sistema, por ejemplo
+ * {@code -Dprims.ebay.quota.browse=5000} o {@code -Dprims.ebay.rate.search=5}.
+ *
+ * Lo usado en el día se guarda en {@code ~/.prims/quota.properties} (o
+ * {@code -Dprims.ebay.quota.file}), así un reinicio no devuelve la cuota completa, y se
+ * corrige con lo que informa eBay ({@link #sincronizar}).
+ */
+public final class EbayRateLimiter {
+
+    /**
+     * Recursos de eBay con una cuota diaria propia.
+     */
+    private enum Recurso {
+        BROWSE("browse", 5000),
+        TOKEN("token", 1000),
+        ANALYTICS("analytics", 1000);
+
+        private final String clave;
+        private final long cuotaPorDefecto;
+
+        Recurso(String clave, long cuotaDiaria) {
+            this.clave = clave;
+            this.cuotaPorDefecto = cuotaDiaria;
+        }
+    }
+
+    /**
+     * Familias de endpoints de eBay, cada una con su propia tasa.
+     */
+    public enum Endpoint {
+        SEARCH("search", 10, 5.0, Recurso.BROWSE),
+        ITEM("item", 10, 5.0, Recurso.BROWSE),
+        TOKEN("token", 2, 0.2, Recurso.TOKEN),
+        ANALYTICS("analytics", 2, 0.2, Recurso.ANALYTICS);
+
+        private final String clave;
+        private final int capacidadPorDefecto;
+        private final double tasaPorDefecto;
+        private final Recurso recurso;
+
+        Endpoint(String clave, int capacidad, double tasaPorSegundo, Recurso recurso) {
+            this.clave = clave;
+            this.capacidadPorDefecto = capacidad;
+            this.tasaPorDefecto = tasaPorSegundo;
+            this.recurso = recurso;
+        }
+
+        /**
+         * Deduce la familia a partir de la URL de la petición.
+         */
+        public static Endpoint forUri(URI uri) {
+            String path = uri.getPath() != null ? uri.getPath() : "";
+            if (path.contains("/oauth2/")) {
+                return TOKEN;
+            }
+            if (path.contains("/developer/analytics/")) {
+                return ANALYTICS;
+            }
+            if (path.contains("/item_summary/")) {
+                return SEARCH;
+            }
+            return ITEM;
+        }
+    }
+
+    /**
+     * Error lanzado cuando se agotó la cuota diaria de un endpoint.
+     */
+    public static class QuotaExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public QuotaExceededException(Endpoint endpoint) {
+            super("Cuota diaria agotada (rate limit) para " + endpoint.name());
+        }
+    }
+
+    // eBay reinicia las cuotas diarias a medianoche, hora del Pacífico
+    private static final ZoneId ZONA_CUOTA = ZoneId.of("America/Los_Angeles");
+
+    // Por debajo de este porcentaje de cuota se considera que queda poco presupuesto
+    private static final double UMBRAL_CUOTA_BAJA = 0.10;
+
+    private static final Map<Recurso, Cuota> CUOTAS = new EnumMap<>(Recurso.class);
+    private static final Map<Endpoint, Bucket> BUCKETS = new EnumMap<>(Endpoint.class);
+
+    private static final Path ARCHIVO_CUOTA = Paths.get(System.getProperty("prims.ebay.quota.file",
+            Paths.get(System.getProperty("user.home"), ".prims", "quota.properties").toString()));
+
+    // El uso se guarda cada tanto (no en cada petición) y al cerrar la aplicación
+    private static final long INTERVALO_GUARDADO_S = 30;
+    private static final ScheduledExecutorService GUARDADO = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cuota-guardado");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        for (Recurso recurso : Recurso.values()) {
+            CUOTAS.put(recurso, new Cuota((long) positivo("prims.ebay.quota." + recurso.clave, recurso.cuotaPorDefecto)));
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            int capacidad = Integer.getInteger("prims.ebay.burst." + endpoint.clave, endpoint.capacidadPorDefecto);
+            double tasa = positivo("prims.ebay.rate." + endpoint.clave, endpoint.tasaPorDefecto);
+            BUCKETS.put(endpoint, new Bucket(capacidad, tasa, CUOTAS.get(endpoint.recurso)));
+        }
+
+        restaurarUso();
+        GUARDADO.scheduleWithFixedDelay(EbayRateLimiter::guardarUso,
+                INTERVALO_GUARDADO_S, INTERVALO_GUARDADO_S, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(EbayRateLimiter::guardarUso, "cuota-guardado-final"));
+    }
+
+    private EbayRateLimiter() {
+    }
+
+    /**
+     * Espera (bloqueando) hasta que haya un token disponible para el endpoint.
+     *
+     * @throws QuotaExceededException si ya no queda cuota diaria
+     */
+    public static void acquire(Endpoint endpoint) throws IOException, InterruptedException {
+        Bucket bucket = BUCKETS.get(endpoint);
+        long espera;
+        while ((espera = bucket.tryAcquire(endpoint)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+
+    /**
+     * Completa cuando hay un token disponible, sin bloquear ningún hilo mientras espera.
+     * Falla con {@link QuotaExceededException} si ya no queda cuota diaria.
+     */
+    public static CompletableFuture<Void> acquireAsync(Endpoint endpoint) {
+        long espera;
+        try {
+            espera = BUCKETS.get(endpoint).tryAcquire(endpoint);
+        } catch (QuotaExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (espera <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return CompletableFuture
+                .runAsync(() -> { }, CompletableFuture.delayedExecutor(espera, TimeUnit.NANOSECONDS))
+                .thenCompose(v -> acquireAsync(endpoint));
+    }
+
+    /**
+     * Registra la respuesta de eBay: un 429 vacía el bucket para frenar la ráfaga actual.
+     */
+    public static void onResponse(Endpoint endpoint, int statusCode) {
+        if (statusCode == 429) {
+            BUCKETS.get(endpoint).drain();
+            ErrorHandler.logWarning("⏳ eBay respondió 429 para " + endpoint.name() + "; se frena la ráfaga");
+        }
+    }
+
+    /**
+     * Ajusta la cuota del recurso del endpoint con lo que informa eBay (límite diario y
+     * llamadas restantes), que también cuenta lo gastado por otras instancias de la
+     * aplicación. Alcanza con una llamada por recurso: SEARCH e ITEM comparten la cuota.
+     */
+    public static void sincronizar(Endpoint endpoint, long limite, long restantes) {
+        if (limite <= 0 || restantes < 0) {
+            return;
+        }
+        CUOTAS.get(endpoint.recurso).sincronizar(limite, restantes);
+        System.out.println("📊 Cuota " + endpoint.recurso.name() + " según eBay: " + restantes + " de " + limite);
+    }
+
+    /**
+     * Llamadas que aún quedan hoy en la cuota del endpoint (compartida con los demás
+     * endpoints del mismo recurso).
+     */
+    public static long remainingQuota(Endpoint endpoint) {
+        return CUOTAS.get(endpoint.recurso).restante();
+    }
+
+    /**
+     * Llamadas realizadas hoy en la cuota del endpoint (compartida con los demás
+     * endpoints del mismo recurso).
+     */
+    public static long usedQuota(Endpoint endpoint) {
+        return CUOTAS.get(endpoint.recurso).usadas();
+    }
+
+    /**
+     * Indica si queda poca cuota diaria; en ese caso conviene servir datos cacheados.
+     */
+    public static boolean isQuotaLow(Endpoint endpoint) {
+        return CUOTAS.get(endpoint.recurso).esBaja();
+    }
+
+    /**
+     * Valor numérico de la propiedad; si no es un número mayor que 0 se avisa y se usa
+     * el valor por defecto (una tasa 0 haría esperar para siempre).
+     */
+    private static double positivo(String nombre, double porDefecto) {
+        String valor = System.getProperty(nombre);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            double numero = Double.parseDouble(valor.trim());
+            if (numero > 0 && Double.isFinite(numero)) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // se avisa abajo
+        }
+        ErrorHandler.logWarning("⚠️ " + nombre + "=" + valor + " no es válido (debe ser mayor que 0); se usa " + porDefecto);
+        return porDefecto;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 💾 PERSISTENCIA DEL USO DIARIO
+    // ═══════════════════════════════════════════════════════
+
+    private static void restaurarUso() {
+        if (!Files.exists(ARCHIVO_CUOTA)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(ARCHIVO_CUOTA)) {
+            props.load(in);
+            for (Map.Entry<Recurso, Cuota> e : CUOTAS.entrySet()) {
+                String dia = props.getProperty(e.getKey().clave + ".dia");
+                String usadas = props.getProperty(e.getKey().clave + ".usadas");
+                if (dia != null && usadas != null) {
+                    e.getValue().restaurar(LocalDate.parse(dia), Long.parseLong(usadas));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            ErrorHandler.logWarning("⚠️ No se pudo leer el uso de cuota guardado: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void guardarUso() {
+        boolean cambios = false;
+        Properties props = new Properties();
+        for (Map.Entry<Recurso, Cuota> e : CUOTAS.entrySet()) {
+            cambios |= e.getValue().volcar(e.getKey().clave, props);
+        }
+        if (!cambios) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(ARCHIVO_CUOTA.toAbsolutePath().getParent());
+            Path temporal = ARCHIVO_CUOTA.resolveSibling(ARCHIVO_CUOTA.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporal)) {
+                props.store(out, "Cuota diaria de eBay usada");
+            }
+            Files.move(temporal, ARCHIVO_CUOTA, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ErrorHandler.logWarning("⚠️ No se pudo guardar el uso de cuota: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Token bucket de un endpoint; cada petición gasta además una llamada de su cuota diaria.
+     */
+    private static final class Bucket {
+        private final int capacidad;
+        private final double tokensPorNano;
+        private final Cuota cuota;
+
+        private double tokens;
+        private long ultimaRecarga = System.nanoTime();
+
+        Bucket(int capacidad, double tasaPorSegundo, Cuota cuota) {
+            this.capacidad = Math.max(1, capacidad);
+            this.tokensPorNano = tasaPorSegundo / TimeUnit.SECONDS.toNanos(1);
+            this.cuota = cuota;
+            this.tokens = this.capacidad;
+        }
+
+        /**
+         * Consume un token si hay; si no, devuelve cuántos nanosegundos esperar.
+         */
+        synchronized long tryAcquire(Endpoint endpoint) throws QuotaExceededException {
+            if (cuota.restante() == 0) {
+                throw new QuotaExceededException(endpoint);
+            }
+
+            recargar();
+            if (tokens >= 1.0) {
+                // Otro endpoint del mismo recurso pudo gastar la última llamada mientras tanto
+                if (!cuota.consumir()) {
+                    throw new QuotaExceededException(endpoint);
+                }
+                tokens -= 1.0;
+                return 0;
+            }
+            return (long) Math.ceil((1.0 - tokens) / tokensPorNano);
+        }
+
+        synchronized void drain() {
+            recargar();
+            tokens = 0;
+        }
+
+        private void recargar() {
+            long ahora = System.nanoTime();
+            tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) * tokensPorNano);
+            ultimaRecarga = ahora;
+        }
+    }
+
+    /**
+     * Contador de la cuota diaria de un recurso, compartido por sus endpoints.
+     */
+    private static final class Cuota {
+        private long cuotaDiaria;
+        private LocalDate diaCuota = LocalDate.now(ZONA_CUOTA);
+        private long usadasHoy;
+
+        // Hay uso sin guardar en disco
+        private boolean sucio;
+
+        Cuota(long cuotaDiaria) {
+            this.cuotaDiaria = cuotaDiaria;
+        }
+
+        /**
+         * Gasta una llamada; false si ya no queda cuota.
+         */
+        synchronized boolean consumir() {
+            reiniciarCuotaSiCambioElDia();
+            if (usadasHoy >= cuotaDiaria) {
+                return false;
+            }
+            usadasHoy++;
+            sucio = true;
+            return true;
+        }
+
+        synchronized long restante() {
+            reiniciarCuotaSiCambioElDia();
+            return Math.max(0, cuotaDiaria - usadasHoy);
+        }
+
+        synchronized long usadas() {
+            reiniciarCuotaSiCambioElDia();
+            return usadasHoy;
+        }
+
+        synchronized boolean esBaja() {
+            reiniciarCuotaSiCambioElDia();
+            return cuotaDiaria - usadasHoy <= cuotaDiaria * UMBRAL_CUOTA_BAJA;
+        }
+
+        synchronized void sincronizar(long limite, long restantes) {
+            reiniciarCuotaSiCambioElDia();
+            cuotaDiaria = limite;
+            usadasHoy = Math.max(0, limite - restantes);
+            sucio = true;
+        }
+
+        /**
+         * Uso guardado en una ejecución anterior; sólo cuenta si es del día en curso.
+         */
+        synchronized void restaurar(LocalDate dia, long usadas) {
+            reiniciarCuotaSiCambioElDia();
+            if (dia.equals(diaCuota)) {
+                usadasHoy = Math.max(usadasHoy, usadas);
+            }
+        }
+
+        /**
+         * Copia el uso del día a {@code props}; devuelve true si cambió desde el último guardado.
+         */
+        synchronized boolean volcar(String clave, Properties props) {
+            reiniciarCuotaSiCambioElDia();
+            props.setProperty(clave + ".dia", diaCuota.toString());
+            props.setProperty(clave + ".usadas", Long.toString(usadasHoy));
+            boolean cambio = sucio;
+            sucio = false;
+            return cambio;
+        }
+
+        private void reiniciarCuotaSiCambioElDia() {
+            LocalDate hoy = LocalDate.now(ZONA_CUOTA);
+            if (!hoy.equals(diaCuota)) {
+                diaCuota = hoy;
+                usadasHoy = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 🧪 Servidor HTTP local que imita la Browse API de eBay con respuestas grabadas.
+ *
+ * Permite ejercitar {@link conect_API_eBay} sin red ni credenciales reales: se levanta el
+ * servidor y se arranca la app con {@code -Dprims.ebay.baseUrl=http://localhost:8089}.
+ * Para medir al upstream conviene además {@code -Dprims.httpcache.enabled=false} y subir
+ * las cuotas ({@code -Dprims.ebay.quota.browse=...}).
+ *
+ * Atiende:
+ * <ul>
+ *   <li>{@code POST /identity/v1/oauth2/token}: acepta cualquier credencial.</li>
+ *   <li>{@code GET /buy/browse/v1/item_summary/search?q=&offset=&limit=}</li>
+ *   <li>{@code GET /buy/browse/v1/item/?item_ids=a,b}</li>
+ *   <li>{@code GET /buy/browse/v1/item/{itemId}}</li>
+ * </ul>
+ *
+ * Los datos salen de un {@link FixtureCatalog}. A las peticiones de la Browse API se les
+ * puede inyectar latencia con variación aleatoria, una tasa de errores 5xx y una tasa de 429.
+ * La latencia se aplica con un planificador: el hilo que atiende queda libre mientras tanto.
+ *
+ * Uso desde consola:
+ * <pre>
+ * java api.EbayStubServer --port=8089 --fixtures=fixtures/ebay --latency=80 --jitter=40 --errors=0.02 --throttle=0.01
+ * </pre>
+ */
+public final class EbayStubServer {
+
+    private static final String RUTA_TOKEN = "/identity/v1/oauth2/token";
+    private static final String RUTA_BUSQUEDA = "/buy/browse/v1/item_summary/search";
+    private static final String RUTA_ITEM = "/buy/browse/v1/item/";
+
+    private final FixtureCatalog catalogo;
+    private final HttpServer server;
+    private final ExecutorService atencion;
+    private final ScheduledExecutorService envios;
+
+    private volatile long latenciaMs;
+    private volatile long variacionMs;
+    private volatile double tasaErrores;
+    private volatile double tasa429;
+
+    private final AtomicLong peticiones = new AtomicLong();
+    private final AtomicLong erroresInyectados = new AtomicLong();
+    private final AtomicLong limitadas = new AtomicLong();
+
+    public EbayStubServer(int puerto, Path fixtures) throws IOException {
+        this.catalogo = FixtureCatalog.abrir(fixtures);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", puerto), 0);
+        this.atencion = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                hilo("ebay-stub"));
+        this.envios = Executors.newScheduledThreadPool(2, hilo("ebay-stub-latency"));
+
+        server.createContext("/", this::atender);
+        server.setExecutor(atencion);
+    }
+
+    private static ThreadFactory hilo(String nombre) {
+        return r -> {
+            Thread t = new Thread(r, nombre);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public EbayStubServer start() {
+        server.start();
+        System.out.println("🧪 Stub de eBay escuchando en " + getBaseUrl() + " con " + catalogo.size()
+                + " items (" + catalogo.getOrigen() + ")");
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        envios.shutdownNow();
+        atencion.shutdownNow();
+        imprimirResumen();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Valor para {@code -Dprims.ebay.baseUrl}.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + getPort();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🎛️ INYECCIÓN DE FALLOS
+    // ═══════════════════════════════════════════════════════
+
+    public void setLatency(long latenciaMs, long variacionMs) {
+        this.latenciaMs = Math.max(0, latenciaMs);
+        this.variacionMs = Math.max(0, variacionMs);
+    }
+
+    /**
+     * Fracción (0..1) de peticiones que responden 500 o 503.
+     */
+    public void setErrorRate(double tasa) {
+        this.tasaErrores = Math.min(1.0, Math.max(0.0, tasa));
+    }
+
+    /**
+     * Fracción (0..1) de peticiones que responden 429 con {@code Retry-After}.
+     */
+    public void setThrottleRate(double tasa) {
+        this.tasa429 = Math.min(1.0, Math.max(0.0, tasa));
+    }
+
+    public void imprimirResumen() {
+        System.out.println("📊 Stub de eBay: " + peticiones.get() + " peticiones, "
+                + erroresInyectados.get() + " errores inyectados, " + limitadas.get() + " respuestas 429");
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🌐 ATENCIÓN DE PETICIONES
+    // ═══════════════════════════════════════════════════════
+
+    private record Respuesta(int status, String cuerpo, Map<String, String> cabeceras) {
+        Respuesta(int status, String cuerpo) {
+            this(status, cuerpo, Map.of());
+        }
+    }
+
+    private void atender(HttpExchange exchange) {
+        peticiones.incrementAndGet();
+        String ruta = exchange.getRequestURI().getPath();
+
+        Respuesta respuesta;
+        long espera = 0;
+        try {
+            if (ruta.equals(RUTA_TOKEN) && exchange.getRequestMethod().equals("POST")) {
+                exchange.getRequestBody().readAllBytes();
+                respuesta = token();
+            } else {
+                espera = latenciaMs + (variacionMs > 0 ? ThreadLocalRandom.current().nextLong(variacionMs + 1) : 0);
+                respuesta = fallo();
+                if (respuesta == null) {
+                    respuesta = browse(ruta, parametros(exchange.getRequestURI().getRawQuery()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            respuesta = error(500, "INTERNAL_ERROR", e.getMessage());
+        }
+
+        Respuesta lista = respuesta;
+        if (espera > 0) {
+            envios.schedule(() -> enviar(exchange, lista), espera, TimeUnit.MILLISECONDS);
+        } else {
+            enviar(exchange, lista);
+        }
+    }
+
+    private Respuesta fallo() {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        if (tasa429 > 0 && azar.nextDouble() < tasa429) {
+            limitadas.incrementAndGet();
+            Respuesta r = error(429, "RATE_LIMITED", "Too many requests");
+            return new Respuesta(r.status(), r.cuerpo(), Map.of("Retry-After", "1"));
+        }
+        if (tasaErrores > 0 && azar.nextDouble() < tasaErrores) {
+            erroresInyectados.incrementAndGet();
+            return azar.nextBoolean()
+                    ? error(500, "INTERNAL_ERROR", "Injected failure")
+                    : error(503, "SERVICE_UNAVAILABLE", "Injected failure");
+        }
+        return null;
+    }
+
+    private Respuesta token() {
+        JsonObject json = new JsonObject();
+        json.addProperty("access_token", "stub-" + Long.toHexString(System.nanoTime()));
+        json.addProperty("expires_in", 7200);
+        json.addProperty("token_type", "Application Access Token");
+        return new Respuesta(200, json.toString());
+    }
+
+    private Respuesta browse(String ruta, Map<String, String> params) {
+        if (ruta.equals(RUTA_BUSQUEDA)) {
+            return busqueda(params);
+        }
+        if (ruta.equals(RUTA_ITEM) && params.containsKey("item_ids")) {
+            return items(params.get("item_ids"));
+        }
+        if (ruta.startsWith(RUTA_ITEM) && ruta.length() > RUTA_ITEM.length()) {
+            JsonObject item = catalogo.detalle(ruta.substring(RUTA_ITEM.length()));
+            return item != null
+                    ? new Respuesta(200, item.toString())
+                    : error(404, "ITEM_NOT_FOUND", "The specified item was not found");
+        }
+        return error(404, "NOT_FOUND", "Unknown resource " + ruta);
+    }
+
+    private Respuesta busqueda(Map<String, String> params) {
+        List<JsonObject> coincidencias = params.containsKey("q")
+                ? catalogo.buscar(params.get("q"))
+                : catalogo.todos();
+
+        String categoria = params.get("category_ids");
+        if (categoria != null) {
+            coincidencias.removeIf(item -> !FixtureCatalog.categoria(item).equals(categoria));
+        }
+        String vendedor = vendedorDelFiltro(params.get("filter"));
+        if (vendedor != null) {
+            coincidencias.removeIf(item -> !FixtureCatalog.vendedor(item).equalsIgnoreCase(vendedor));
+        }
+        if ("newlyListed".equals(params.get("sort"))) {
+            coincidencias.sort(Comparator.comparing(
+                    (JsonObject item) -> item.has("itemCreationDate") ? item.get("itemCreationDate").getAsString() : "")
+                    .reversed());
+        }
+        int offset = entero(params.get("offset"), 0);
+        int limite = entero(params.get("limit"), 50);
+
+        int desde = Math.min(offset, coincidencias.size());
+        int hasta = Math.min(desde + limite, coincidencias.size());
+        JsonArray resumenes = new JsonArray();
+        coincidencias.subList(desde, hasta).forEach(resumenes::add);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("total", coincidencias.size());
+        json.addProperty("offset", offset);
+        json.addProperty("limit", limite);
+        json.add("itemSummaries", resumenes);
+        return new Respuesta(200, json.toString());
+    }
+
+    /**
+     * Extrae el vendedor de {@code filter=...,sellers:{nombre},...}; null si no hay.
+     */
+    private static String vendedorDelFiltro(String filtro) {
+        if (filtro == null) {
+            return null;
+        }
+        int inicio = filtro.indexOf("sellers:{");
+        if (inicio < 0) {
+            return null;
+        }
+        int fin = filtro.indexOf('}', inicio);
+        return fin > 0 ? filtro.substring(inicio + "sellers:{".length(), fin) : null;
+    }
+
+    private Respuesta items(String ids) {
+        JsonArray encontrados = new JsonArray();
+        for (String id : ids.split(",")) {
+            JsonObject item = catalogo.resumen(id.trim());
+            if (item != null) {
+                encontrados.add(item);
+            }
+        }
+
+        JsonObject json = new JsonObject();
+        json.add("items", encontrados);
+        return new Respuesta(200, json.toString());
+    }
+
+    private static Respuesta error(int status, String codigo, String mensaje) {
+        JsonObject detalle = new JsonObject();
+        detalle.addProperty("errorId", status);
+        detalle.addProperty("domain", "API_BROWSE");
+        detalle.addProperty("category", codigo);
+        detalle.addProperty("message", mensaje);
+        JsonArray errores = new JsonArray();
+        errores.add(detalle);
+
+        JsonObject json = new JsonObject();
+        json.add("errors", errores);
+        return new Respuesta(status, json.toString());
+    }
+
+    private static void enviar(HttpExchange exchange, Respuesta respuesta) {
+        try (exchange) {
+            byte[] cuerpo = respuesta.cuerpo().getBytes(StandardCharsets.UTF_8);
+
+            String aceptadas = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (aceptadas != null && aceptadas.contains("gzip")) {
+                ByteArrayOutputStream comprimido = new ByteArrayOutputStream(cuerpo.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+                    gzip.write(cuerpo);
+                }
+                cuerpo = comprimido.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            respuesta.cabeceras().forEach(exchange.getResponseHeaders()::set);
+            exchange.sendResponseHeaders(respuesta.status(), cuerpo.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cuerpo);
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión antes de recibir la respuesta
+        }
+    }
+
+    private static Map<String, String> parametros(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                params.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static int entero(String valor, int porDefecto) {
+        try {
+            return valor != null ? Math.max(0, Integer.parseInt(valor)) : porDefecto;
+        } catch (NumberFormatException e) {
+            return porDefecto;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ▶️ EJECUCIÓN DESDE CONSOLA
+    // ═══════════════════════════════════════════════════════
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                opciones.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+
+        int puerto = Integer.parseInt(opciones.getOrDefault("port", "8089"));
+        String fixtures = opciones.get("fixtures");
+
+        EbayStubServer stub = new EbayStubServer(puerto, fixtures != null ? Paths.get(fixtures) : null);
+        stub.setLatency(Long.parseLong(opciones.getOrDefault("latency", "0")),
+                Long.parseLong(opciones.getOrDefault("jitter", "0")));
+        stub.setErrorRate(Double.parseDouble(opciones.getOrDefault("errors", "0")));
+        stub.setThrottleRate(Double.parseDouble(opciones.getOrDefault("throttle", "0")));
+
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        stub.start();
+    }
+}
@@ -0,0 +1,166 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import entities.Producto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 🧪 Proveedor en proceso que responde con datos grabados, sin tocar eBay.
+ *
+ * Sirve para probar la interfaz sin red y para someter el motor de análisis a miles de
+ * items por segundo. Se activa con {@code -Dprims.marketplace.provider=fake}.
+ *
+ * <ul>
+ *   <li>{@code prims.fake.fixtures}: carpeta de fixtures (ver {@link FixtureCatalog});
+ *       sin carpeta se genera un catálogo sintético.</li>
+ *   <li>{@code prims.fake.latency.ms} y {@code prims.fake.jitter.ms}: latencia base y
+ *       variación aleatoria de cada respuesta (por defecto 50 y 20 ms).</li>
+ * </ul>
+ *
+ * Las respuestas pasan por los mismos decodificadores que las de eBay. La espera se hace
+ * con un ejecutor diferido, así que miles de peticiones simultáneas no ocupan hilos.
+ */
+public class FakeMarketplaceProvider implements MarketplaceProvider {
+
+    public static final String ID = "fake";
+
+    private final FixtureCatalog catalogo;
+
+    private volatile long latenciaMs;
+    private volatile long variacionMs;
+
+    /**
+     * Constructor usado por {@link java.util.ServiceLoader}: se configura con propiedades del sistema.
+     */
+    public FakeMarketplaceProvider() {
+        this(rutaFixtures(),
+                Long.getLong("prims.fake.latency.ms", 50),
+                Long.getLong("prims.fake.jitter.ms", 20));
+    }
+
+    public FakeMarketplaceProvider(Path fixtures, long latenciaMs, long variacionMs) {
+        this.latenciaMs = Math.max(0, latenciaMs);
+        this.variacionMs = Math.max(0, variacionMs);
+
+        this.catalogo = FixtureCatalog.abrir(fixtures);
+        System.out.println("🧪 Proveedor falso con " + catalogo.size() + " items (" + catalogo.getOrigen() + ")");
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    /**
+     * Cambia la latencia simulada en tiempo de ejecución.
+     */
+    public void setLatency(long latenciaMs, long variacionMs) {
+        this.latenciaMs = Math.max(0, latenciaMs);
+        this.variacionMs = Math.max(0, variacionMs);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔍 OPERACIONES
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Busca en el catálogo según {@link FixtureCatalog#buscar}. El filtro de búsqueda no se aplica.
+     */
+    @Override
+    public CompletableFuture<SearchPage<Producto>> searchPage(
+            String token, String query, int offset, int limit, SearchFilter filter) {
+        return responder(() -> {
+            List<JsonObject> coincidencias = catalogo.buscar(query);
+            int desde = Math.min(Math.max(0, offset), coincidencias.size());
+            int hasta = Math.min(desde + Math.max(0, limit), coincidencias.size());
+
+            try {
+                return ItemSummaryDecoder.decodePage(
+                        cuerpo(coincidencias.subList(desde, hasta), coincidencias.size()), offset, limit);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ItemDetail> itemDetail(String token, String itemId) {
+        return responder(() -> {
+            JsonObject item = catalogo.detalle(itemId);
+            return item != null ? ItemDetailMapper.toItemDetail(item) : null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Double>> prices(String token, Collection<String> itemIds) {
+        return responder(() -> {
+            Map<String, Double> precios = new HashMap<>();
+            for (String id : itemIds) {
+                Double precio = FixtureCatalog.precio(catalogo.resumen(id));
+                if (precio != null && precio > 0) {
+                    precios.put(id, precio);
+                }
+            }
+            return precios;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<ItemSummary>> sellerItems(String token, String seller, int limit) {
+        return responder(() -> {
+            List<JsonObject> items = catalogo.delVendedor(seller, limit);
+            try {
+                return ItemSummaryDecoder.decodeSummaryPage(cuerpo(items, items.size()), 0, limit).getItems();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Arma el cuerpo de una respuesta de búsqueda, para pasarlo por el mismo decodificador que eBay.
+     */
+    private static InputStream cuerpo(List<JsonObject> items, int total) {
+        JsonArray resumenes = new JsonArray();
+        items.forEach(resumenes::add);
+
+        JsonObject pagina = new JsonObject();
+        pagina.addProperty("total", total);
+        pagina.add("itemSummaries", resumenes);
+        return new ByteArrayInputStream(pagina.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ⏱️ LATENCIA SIMULADA
+    // ═══════════════════════════════════════════════════════
+
+    private <T> CompletableFuture<T> responder(Supplier<T> respuesta) {
+        long espera = latenciaMs;
+        if (variacionMs > 0) {
+            espera += ThreadLocalRandom.current().nextLong(variacionMs + 1);
+        }
+        return CompletableFuture.supplyAsync(respuesta,
+                CompletableFuture.delayedExecutor(espera, TimeUnit.MILLISECONDS));
+    }
+
+    private static Path rutaFixtures() {
+        String ruta = System.getProperty("prims.fake.fixtures");
+        return ruta != null && !ruta.isBlank() ? Paths.get(ruta) : null;
+    }
+}
@@ -0,0 +1,235 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 📂 Catálogo de respuestas grabadas de la Browse API, compartido por
+ * {@link FakeMarketplaceProvider} y {@link EbayStubServer}.
+ *
+ * La carpeta de fixtures contiene {@code search.json} (respuesta de
+ * {@code item_summary/search}) y opcionalmente {@code items/<itemId>.json} (respuestas de
+ * {@code item/{id}}; los caracteres raros del id se reemplazan por "_"). Sin carpeta se
+ * genera un catálogo sintético determinista de {@code prims.fake.items} items (500 por defecto).
+ *
+ * Los items se guardan tal como vienen de eBay y no se modifican después de cargarse.
+ */
+final class FixtureCatalog {
+
+    private static final int ITEMS_SINTETICOS = 500;
+    private static final int VENDEDORES_SINTETICOS = 50;
+    private static final String[] CATEGORIAS = {"Electrónica", "Hogar", "Juguetes", "Ropa", "Deportes"};
+
+    // Orden de la fixture; clave = itemId en formato de la app (%7C)
+    private final Map<String, JsonObject> items;
+    private final Path carpetaItems;
+    private final String origen;
+
+    private FixtureCatalog(Map<String, JsonObject> items, Path carpetaItems, String origen) {
+        this.items = items;
+        this.carpetaItems = carpetaItems;
+        this.origen = origen;
+    }
+
+    /**
+     * Carga las fixtures de la carpeta o, si no tiene {@code search.json}, arma el catálogo sintético.
+     */
+    static FixtureCatalog abrir(Path fixtures) {
+        if (fixtures != null && Files.isRegularFile(fixtures.resolve("search.json"))) {
+            return new FixtureCatalog(cargar(fixtures.resolve("search.json")),
+                    fixtures.resolve("items"), fixtures.toString());
+        }
+        return new FixtureCatalog(sintetico(Integer.getInteger("prims.fake.items", ITEMS_SINTETICOS)),
+                null, "catálogo sintético");
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    String getOrigen() {
+        return origen;
+    }
+
+    /**
+     * Todos los items, en el orden de la fixture.
+     */
+    List<JsonObject> todos() {
+        return new ArrayList<>(items.values());
+    }
+
+    /**
+     * Items cuyo título o vendedor contiene alguna palabra de la consulta; si ninguno
+     * coincide se devuelve el catálogo completo, para que cualquier consulta tenga datos.
+     */
+    List<JsonObject> buscar(String query) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        String[] palabras = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        List<JsonObject> coincidencias = new ArrayList<>();
+        for (JsonObject item : items.values()) {
+            String texto = texto(item, "title") + " " + vendedor(item).toLowerCase(Locale.ROOT);
+            for (String palabra : palabras) {
+                if (texto.contains(palabra)) {
+                    coincidencias.add(item);
+                    break;
+                }
+            }
+        }
+        return coincidencias.isEmpty() ? new ArrayList<>(items.values()) : coincidencias;
+    }
+
+    /**
+     * Resumen del item tal como aparece en la búsqueda, o null si no existe.
+     */
+    JsonObject resumen(String itemId) {
+        return items.get(itemId.replace("|", "%7C"));
+    }
+
+    /**
+     * Detalle grabado del item; si no hay uno se usa el resumen de la búsqueda.
+     */
+    JsonObject detalle(String itemId) {
+        if (carpetaItems != null) {
+            Path archivo = carpetaItems.resolve(itemId.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+            if (Files.isRegularFile(archivo)) {
+                try (Reader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                    return JsonParser.parseReader(reader).getAsJsonObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return resumen(itemId);
+    }
+
+    List<JsonObject> delVendedor(String seller, int limite) {
+        List<JsonObject> resultado = new ArrayList<>();
+        for (JsonObject item : items.values()) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            if (vendedor(item).equalsIgnoreCase(seller)) {
+                resultado.add(item);
+            }
+        }
+        return resultado;
+    }
+
+    static Double precio(JsonObject item) {
+        if (item == null || !item.has("price") || !item.get("price").isJsonObject()) {
+            return null;
+        }
+        JsonElement valor = item.getAsJsonObject("price").get("value");
+        try {
+            return valor != null ? Double.parseDouble(valor.getAsString()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String texto(JsonObject item, String campo) {
+        return item.has(campo) ? item.get(campo).getAsString().toLowerCase(Locale.ROOT) : "";
+    }
+
+    static String vendedor(JsonObject item) {
+        if (!item.has("seller") || !item.get("seller").isJsonObject()) {
+            return "";
+        }
+        JsonElement username = item.getAsJsonObject("seller").get("username");
+        return username != null ? username.getAsString() : "";
+    }
+
+    static String categoria(JsonObject item) {
+        if (!item.has("categories") || item.getAsJsonArray("categories").isEmpty()) {
+            return "";
+        }
+        JsonElement id = item.getAsJsonArray("categories").get(0).getAsJsonObject().get("categoryId");
+        return id != null ? id.getAsString() : "";
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 📥 CARGA
+    // ═══════════════════════════════════════════════════════
+
+    private static Map<String, JsonObject> cargar(Path archivo) {
+        Map<String, JsonObject> items = new LinkedHashMap<>();
+
+        try (Reader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+            if (json.has("itemSummaries")) {
+                for (JsonElement elem : json.getAsJsonArray("itemSummaries")) {
+                    JsonObject item = elem.getAsJsonObject();
+                    if (item.has("itemId")) {
+                        items.put(item.get("itemId").getAsString().replace("|", "%7C"), item);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la fixture " + archivo, e);
+        }
+
+        return Collections.unmodifiableMap(items);
+    }
+
+    /**
+     * Catálogo determinista: los mismos parámetros generan siempre los mismos items.
+     */
+    private static Map<String, JsonObject> sintetico(int cantidad) {
+        Map<String, JsonObject> items = new LinkedHashMap<>();
+
+        for (int i = 0; i < cantidad; i++) {
+            String categoria = CATEGORIAS[i % CATEGORIAS.length];
+            String itemId = "v1|" + (100000000000L + i) + "|0";
+
+            JsonObject precio = new JsonObject();
+            precio.addProperty("value", String.format(Locale.ROOT, "%.2f", 5 + (i * 7919 % 50000) / 100.0));
+            precio.addProperty("currency", "USD");
+
+            JsonObject vendedor = new JsonObject();
+            vendedor.addProperty("username", "vendedor_" + (i % VENDEDORES_SINTETICOS));
+            vendedor.addProperty("feedbackScore", 100 + (i * 37) % 5000);
+            vendedor.addProperty("feedbackPercentage", String.format(Locale.ROOT, "%.1f", 90 + (i % 100) / 10.0));
+
+            JsonObject cat = new JsonObject();
+            cat.addProperty("categoryId", String.valueOf(1000 + i % CATEGORIAS.length));
+            cat.addProperty("categoryName", categoria);
+            JsonArray categorias = new JsonArray();
+            categorias.add(cat);
+
+            JsonObject item = new JsonObject();
+            item.addProperty("itemId", itemId);
+            item.addProperty("title", categoria + " de prueba " + i);
+            item.add("price", precio);
+            item.add("seller", vendedor);
+            item.add("categories", categorias);
+            item.addProperty("conditionId", i % 3 == 0 ? "3000" : "1000");
+            item.addProperty("condition", i % 3 == 0 ? "Used" : "New");
+            item.addProperty("topRatedBuyingExperience", i % 4 == 0);
+            item.addProperty("itemCreationDate", String.format(Locale.ROOT, "20%02d-%02d-%02dT00:00:00.000Z",
+                    15 + i % 10, 1 + i % 12, 1 + i % 28));
+            item.addProperty("itemWebUrl", "https://www.ebay.com/itm/" + (100000000000L + i));
+
+            items.put(itemId.replace("|", "%7C"), item);
+        }
+
+        return Collections.unmodifiableMap(items);
+    }
+}
@@ -0,0 +1,93 @@
+package api;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limita la cantidad de peticiones HTTP en vuelo sin bloquear hilos.
+ *
+ * Las tareas que exceden el límite quedan encoladas y se lanzan cuando
+ * termina alguna de las que están en curso.
+ */
+final class InFlightLimiter {
+
+    private final AtomicInteger enVuelo = new AtomicInteger();
+    private final Queue<Runnable> pendientes = new ConcurrentLinkedQueue<>();
+    private volatile int maximo;
+
+    InFlightLimiter(int maximo) {
+        setMaximo(maximo);
+    }
+
+    void setMaximo(int maximo) {
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El límite de peticiones en vuelo debe ser >= 1");
+        }
+        this.maximo = maximo;
+        drenar();
+    }
+
+    int getMaximo() {
+        return maximo;
+    }
+
+    int getEnVuelo() {
+        return enVuelo.get();
+    }
+
+    int getPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Ejecuta la tarea cuando haya cupo y devuelve un futuro con su resultado.
+     */
+    <T> CompletableFuture<T> ejecutar(Supplier<CompletableFuture<T>> tarea) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+
+        pendientes.add(() -> {
+            CompletableFuture<T> futuro;
+            try {
+                futuro = tarea.get();
+            } catch (Throwable t) {
+                futuro = CompletableFuture.failedFuture(t);
+            }
+
+            futuro.whenComplete((valor, error) -> {
+                enVuelo.decrementAndGet();
+                drenar();
+
+                if (error != null) {
+                    resultado.completeExceptionally(error);
+                } else {
+                    resultado.complete(valor);
+                }
+            });
+        });
+
+        drenar();
+        return resultado;
+    }
+
+    private void drenar() {
+        while (!pendientes.isEmpty()) {
+            int actual = enVuelo.get();
+            if (actual >= maximo) {
+                return;
+            }
+            if (!enVuelo.compareAndSet(actual, actual + 1)) {
+                continue;
+            }
+
+            Runnable siguiente = pendientes.poll();
+            if (siguiente == null) {
+                enVuelo.decrementAndGet();
+                continue;
+            }
+            siguiente.run();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package api;
+
+import java.util.List;
+
+/**
+ * 📦 Detalle de un item ({@code item/{id}}) con lo que la app muestra y guarda.
+ *
+ * @param price                 precio actual; null si eBay no lo informa
+ * @param availabilityStatus    primer {@code estimatedAvailabilityStatus} (p. ej. IN_STOCK); null si no hay
+ */
+public record ItemDetail(
+        String shortDescription,
+        Price price,
+        List<ShippingOption> shippingOptions,
+        boolean returnsAccepted,
+        List<Coupon> coupons,
+        String availabilityStatus,
+        List<Aspect> aspects
+) {
+
+    /**
+     * Cupón disponible para el item.
+     */
+    public record Coupon(String redemptionCode, double discountAmount, String expirationDate) {
+    }
+
+    /**
+     * Atributo del producto (marca, modelo, color...).
+     */
+    public record Aspect(String name, String value) {
+    }
+
+    public ItemDetail {
+        shippingOptions = List.copyOf(shippingOptions);
+        coupons = List.copyOf(coupons);
+        aspects = List.copyOf(aspects);
+    }
+}
@@ -0,0 +1,141 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte el JSON de {@code item/{id}} de la Browse API en {@link ItemDetail}.
+ *
+ * No tiene estado: lo usan tanto {@link conect_API_eBay} como los proveedores que
+ * reproducen respuestas grabadas, sin arrancar el cliente real (caché en disco,
+ * limitador, circuitos, sincronización de cuotas).
+ */
+final class ItemDetailMapper {
+
+    private ItemDetailMapper() {
+    }
+
+    /**
+     * Convierte el JSON de {@code item/{id}} al detalle que usa la interfaz.
+     */
+    static ItemDetail toItemDetail(JsonObject item) {
+
+        // ==========================
+        // 📝 DESCRIPCIÓN
+        // ==========================
+        String descripcion = item.has("shortDescription") && !item.get("shortDescription").isJsonNull()
+                ? item.get("shortDescription").getAsString()
+                : "Sin descripción disponible";
+
+        Price precio = item.has("price") && item.get("price").isJsonObject()
+                ? toPrice(item.getAsJsonObject("price"))
+                : null;
+
+        // ==========================
+        // 📦 OPCIONES DE ENVÍO (shippingOptions)
+        // ==========================
+        List<ShippingOption> envios = new ArrayList<>();
+        if (item.has("shippingOptions") && item.get("shippingOptions").isJsonArray()) {
+            for (JsonElement shipElem : item.getAsJsonArray("shippingOptions")) {
+                if (!shipElem.isJsonObject()) continue;
+                JsonObject ship = shipElem.getAsJsonObject();
+
+                envios.add(new ShippingOption(
+                        texto(ship, "type", "N/A"),
+                        texto(ship, "shippingCarrierCode", "N/A"),
+                        ship.has("shippingCost") && ship.get("shippingCost").isJsonObject()
+                                ? toPrice(ship.getAsJsonObject("shippingCost")) : null,
+                        ship.has("quantityUsedForEstimate") ? ship.get("quantityUsedForEstimate").getAsInt() : 0,
+                        texto(ship, "minEstimatedDeliveryDate", "N/A"),
+                        texto(ship, "maxEstimatedDeliveryDate", "N/A"),
+                        ship.has("additionalShippingCostPerUnit") && ship.get("additionalShippingCostPerUnit").isJsonObject()
+                                ? toPrice(ship.getAsJsonObject("additionalShippingCostPerUnit")) : null,
+                        texto(ship, "shippingCostType", "N/A")
+                ));
+            }
+        }
+
+        // ==========================
+        // 🔄 POLÍTICA DE DEVOLUCIONES
+        // ==========================
+        boolean devoluciones = false;
+        if (item.has("returnTerms") && item.get("returnTerms").isJsonObject()) {
+            JsonObject returnTerms = item.getAsJsonObject("returnTerms");
+            devoluciones = returnTerms.has("returnsAccepted") && returnTerms.get("returnsAccepted").getAsBoolean();
+        }
+
+        // ==========================
+        // 🎟 CUPÓNES DISPONIBLES
+        // ==========================
+        List<ItemDetail.Coupon> cupones = new ArrayList<>();
+        if (item.has("availableCoupons") && item.get("availableCoupons").isJsonArray()) {
+            for (JsonElement couponElem : item.getAsJsonArray("availableCoupons")) {
+                if (!couponElem.isJsonObject()) continue;
+                JsonObject coupon = couponElem.getAsJsonObject();
+
+                double descuento = coupon.has("discountAmount") && coupon.get("discountAmount").isJsonObject()
+                        ? toPrice(coupon.getAsJsonObject("discountAmount")).value()
+                        : 0.0;
+
+                String vence = null;
+                if (coupon.has("constraint") && coupon.get("constraint").isJsonObject()) {
+                    vence = texto(coupon.getAsJsonObject("constraint"), "expirationDate", null);
+                }
+
+                cupones.add(new ItemDetail.Coupon(texto(coupon, "redemptionCode", "N/A"), descuento, vence));
+            }
+        }
+
+        // ==========================
+        // 📦 DISPONIBILIDAD ESTIMADA
+        // ==========================
+        String disponibilidad = null;
+        if (item.has("estimatedAvailabilities") && item.get("estimatedAvailabilities").isJsonArray()) {
+            JsonArray availArray = item.getAsJsonArray("estimatedAvailabilities");
+            if (!availArray.isEmpty() && availArray.get(0).isJsonObject()) {
+                disponibilidad = texto(availArray.get(0).getAsJsonObject(), "estimatedAvailabilityStatus", null);
+            }
+        }
+
+        // ==========================
+        // 🔧 ATRIBUTOS DEL PRODUCTO (localizedAspects)
+        // ==========================
+        List<ItemDetail.Aspect> atributos = new ArrayList<>();
+        if (item.has("localizedAspects") && item.get("localizedAspects").isJsonArray()) {
+            for (JsonElement aspectElem : item.getAsJsonArray("localizedAspects")) {
+                if (!aspectElem.isJsonObject()) continue;
+                JsonObject aspect = aspectElem.getAsJsonObject();
+                if (!aspect.has("name")) continue;
+
+                String valor = null;
+                if (aspect.has("value")) {
+                    JsonElement v = aspect.get("value");
+                    valor = v.isJsonPrimitive() ? v.getAsString() : v.toString();
+                }
+                atributos.add(new ItemDetail.Aspect(aspect.get("name").getAsString(), valor));
+            }
+        }
+
+        return new ItemDetail(descripcion, precio, envios, devoluciones, cupones, disponibilidad, atributos);
+    }
+
+    static Price toPrice(JsonObject monto) {
+        double valor = 0.0;
+        if (monto.has("value")) {
+            try {
+                valor = Double.parseDouble(monto.get("value").getAsString());
+            } catch (NumberFormatException ignored) {
+                // se deja en 0
+            }
+        }
+        return new Price(valor, texto(monto, "currency", "USD"));
+    }
+
+    static String texto(JsonObject json, String campo, String porDefecto) {
+        return json.has(campo) && !json.get(campo).isJsonNull() ? json.get(campo).getAsString() : porDefecto;
+    }
+}
@@ -0,0 +1,37 @@
+package api;
+
+import java.util.List;
+
+/**
+ * 🔍 Resultado de búsqueda de la Browse API ({@code itemSummaries[]}).
+ *
+ * El itemId usa el formato de la app ({@code v1%7C...%7C0}) y está internado, igual que
+ * el vendedor y la moneda: se repiten mucho entre páginas y análisis.
+ */
+public record ItemSummary(
+        String itemId,
+        String title,
+        Price price,
+        String categoryId,
+        String categoryName,
+        String conditionId,
+        String condition,
+        List<String> images,
+        SellerSummary seller,
+        boolean topRated,
+        String itemCreationDate,
+        String itemWebUrl
+) {
+
+    public ItemSummary {
+        itemId = itemId.intern();
+        images = images != null ? List.copyOf(images) : List.of();
+    }
+
+    /**
+     * Precio del item; 0 si no tiene.
+     */
+    public double priceValue() {
+        return price != null ? price.value() : 0.0;
+    }
+}
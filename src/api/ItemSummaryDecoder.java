@@ -0,0 +1,397 @@
+package api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import entities.*;
+import utils.ErrorHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodificador en streaming de las respuestas de la Browse API
+ * ({@code item_summary/search} y {@code item/?item_ids=}).
+ *
+ * Lee el cuerpo HTTP token a token con {@link JsonReader} y arma cada resultado como
+ * {@link ItemSummary} (y de ahí el {@link Producto} con su vendedor, categoría, condición,
+ * precio e imágenes), sin armar árboles {@code JsonObject} intermedios.
+ */
+final class ItemSummaryDecoder {
+
+    private static final DateTimeFormatter FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private ItemSummaryDecoder() {
+    }
+
+    /**
+     * Decodifica una página completa de resultados como {@link Producto}.
+     */
+    static SearchPage<Producto> decodePage(InputStream body, int offset, int limite) throws IOException {
+        SearchPage<ItemSummary> resumenes = decodeSummaryPage(body, offset, limite);
+
+        List<Producto> productos = new ArrayList<>(resumenes.getItems().size());
+        for (ItemSummary resumen : resumenes.getItems()) {
+            try {
+                productos.add(toProducto(resumen));
+            } catch (RuntimeException e) {
+                // Un item mal formado no invalida el resto de la página
+                ErrorHandler.logWarning("Error procesando item " + resumen.itemId() + ": " + e.getMessage());
+            }
+        }
+        return new SearchPage<>(productos, offset, limite, resumenes.getTotal());
+    }
+
+    /**
+     * Decodifica una página completa de resultados como {@link ItemSummary}.
+     */
+    static SearchPage<ItemSummary> decodeSummaryPage(InputStream body, int offset, int limite) throws IOException {
+        List<ItemSummary> resumenes = new ArrayList<>();
+        int total = 0;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "total" -> total = reader.nextInt();
+                    case "itemSummaries" -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            ItemSummary resumen = readItem(reader);
+                            if (resumen != null) {
+                                resumenes.add(resumen);
+                            }
+                        }
+                        reader.endArray();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        return new SearchPage<>(resumenes, offset, limite, total);
+    }
+
+    /**
+     * Decodifica la respuesta de {@code item/?item_ids=} (getItems) quedándose sólo
+     * con el precio de cada item. Las claves usan el formato de itemId de la app (%7C).
+     */
+    static Map<String, Double> decodePrices(InputStream body) throws IOException {
+        Map<String, Double> precios = new HashMap<>();
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("items") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String itemId = null;
+                    double price = 0.0;
+
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String campo = reader.nextName();
+                        if (campo.equals("itemId")) {
+                            itemId = reader.nextString().replace("|", "%7C").intern();
+                        } else if (campo.equals("price") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            reader.beginObject();
+                            while (reader.hasNext()) {
+                                if (reader.nextName().equals("value")) {
+                                    price = readDouble(reader);
+                                } else {
+                                    reader.skipValue();
+                                }
+                            }
+                            reader.endObject();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+
+                    if (itemId != null && price > 0.0) {
+                        precios.put(itemId, price);
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+
+        return precios;
+    }
+
+    /**
+     * Lee un item. Devuelve null si no trae itemId o si algún dato numérico es inválido
+     * (el item se consume entero, así que la lectura sigue con el próximo).
+     */
+    private static ItemSummary readItem(JsonReader reader) throws IOException {
+        String itemId = null;
+        String title = "Sin título";
+        Price price = null;
+        String categoryId = null;
+        String categoryName = null;
+        String conditionId = null;
+        String conditionName = null;
+        List<String> imagenes = new ArrayList<>();
+        String imagenPrincipal = null;
+        SellerSummary vendedor = null;
+        boolean topRated = false;
+        String creationDate = null;
+        String url = "";
+        String invalido = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String campo = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (campo) {
+                case "itemId" -> itemId = reader.nextString().replace("|", "%7C");
+                case "title" -> title = reader.nextString();
+                case "price" -> price = readPrice(reader);
+                case "categories" -> {
+                    // Sólo interesa la primera categoría
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (categoryId != null || categoryName != null) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        categoryName = "Sin categoría";
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "categoryId" -> categoryId = reader.nextString();
+                                case "categoryName" -> categoryName = reader.nextString();
+                                default -> reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
+                }
+                case "conditionId" -> conditionId = reader.nextString();
+                case "condition" -> conditionName = reader.nextString();
+                case "image" -> imagenPrincipal = readImageUrl(reader);
+                case "additionalImages" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        String adicional = readImageUrl(reader);
+                        if (adicional != null && !adicional.isBlank()) {
+                            imagenes.add(adicional);
+                        }
+                    }
+                    reader.endArray();
+                }
+                case "seller" -> {
+                    vendedor = readSeller(reader);
+                    if (vendedor == null) {
+                        invalido = "feedbackScore del vendedor";
+                    }
+                }
+                case "topRatedBuyingExperience" -> topRated = reader.peek() == JsonToken.BOOLEAN
+                        ? reader.nextBoolean()
+                        : Boolean.parseBoolean(reader.nextString());
+                case "itemCreationDate" -> creationDate = reader.nextString();
+                case "itemWebUrl" -> url = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (itemId == null || itemId.isEmpty()) {
+            return null;
+        }
+
+        if (categoryId != null && !esEntero(categoryId)) {
+            invalido = "categoryId '" + categoryId + "'";
+        } else if (conditionId != null && !esEntero(conditionId)) {
+            invalido = "conditionId '" + conditionId + "'";
+        }
+        if (invalido != null) {
+            ErrorHandler.logWarning("Error procesando item " + itemId + ": " + invalido + " inválido");
+            return null;
+        }
+
+        // La imagen principal va primero, luego las adicionales
+        if (imagenPrincipal != null && !imagenPrincipal.isBlank()) {
+            imagenes.add(0, imagenPrincipal);
+        }
+
+        return new ItemSummary(
+                itemId,
+                title,
+                price,
+                categoryId,
+                categoryName,
+                conditionId,
+                conditionName,
+                imagenes,
+                vendedor != null ? vendedor : new SellerSummary("Desconocido", 0, 0.0),
+                topRated,
+                creationDate,
+                url
+        );
+    }
+
+    /**
+     * Arma el {@link Producto} de la app a partir de un resultado de búsqueda.
+     */
+    static Producto toProducto(ItemSummary item) {
+        CategoryProduct categoria = item.categoryName() != null
+                ? new CategoryProduct(item.categoryId() != null ? Integer.parseInt(item.categoryId().trim()) : 0, item.categoryName())
+                : new CategoryProduct(0, "Sin categoría");
+
+        ConditionProduct condicion = new ConditionProduct();
+        if (item.conditionId() != null && item.condition() != null) {
+            condicion.setIdCondition(Integer.parseInt(item.conditionId().trim()));
+            condicion.setConditionPath(item.condition());
+        } else {
+            condicion.setIdCondition(0);
+            condicion.setConditionPath("Sin especificar");
+        }
+
+        Seller vendedor = new Seller();
+        vendedor.setUsername(item.seller().username());
+        vendedor.setFeedbackScore(item.seller().feedbackScore());
+        vendedor.setFeedbackPorcentage(item.seller().feedbackPercentage());
+
+        String creationDate = item.itemCreationDate();
+        String dateCreated = creationDate != null && creationDate.length() >= 10
+                ? creationDate.substring(0, 10)
+                : LocalDate.now().format(FECHA);
+
+        Producto producto = new Producto(
+                item.itemId(),
+                item.title(),
+                vendedor,
+                categoria,
+                condicion,
+                (byte) (item.topRated() ? 1 : 0),
+                item.itemWebUrl(),
+                dateCreated
+        );
+
+        if (item.priceValue() > 0.0) {
+            producto.setPriceHistory(new PriceHistory(item.itemId(), item.price().value(), item.price().currency(), dateCreated));
+        }
+
+        List<String> imagenes = new ArrayList<>(item.images());
+        if (imagenes.isEmpty()) {
+            URL porDefecto = ItemSummaryDecoder.class.getResource("/interfaz/recursos/imagen-rota.png");
+            if (porDefecto != null) {
+                imagenes.add(porDefecto.toExternalForm());
+            }
+        }
+        producto.setImageUrls(imagenes);
+
+        return producto;
+    }
+
+    private static Price readPrice(JsonReader reader) throws IOException {
+        double valor = 0.0;
+        String moneda = "USD";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "value" -> valor = readDouble(reader);
+                case "currency" -> moneda = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Price(valor, moneda);
+    }
+
+    /**
+     * Lee el vendedor. Devuelve null si el feedbackScore no es un entero.
+     */
+    private static SellerSummary readSeller(JsonReader reader) throws IOException {
+        String username = "Desconocido";
+        Integer feedbackScore = 0;
+        double feedbackPercentage = 0.0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "username" -> username = reader.nextString();
+                case "feedbackScore" -> feedbackScore = readInt(reader);
+                case "feedbackPercentage" -> feedbackPercentage = readDouble(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return feedbackScore != null ? new SellerSummary(username, feedbackScore, feedbackPercentage) : null;
+    }
+
+    /**
+     * Lee un entero escrito como número o como texto. Siempre consume el valor;
+     * devuelve null si no es un entero válido.
+     */
+    private static Integer readInt(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return null;
+        }
+        String texto = reader.nextString().trim();
+        return esEntero(texto) ? Integer.valueOf(texto) : null;
+    }
+
+    private static boolean esEntero(String texto) {
+        try {
+            Integer.parseInt(texto.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String readImageUrl(JsonReader reader) throws IOException {
+        String url = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("imageUrl")) {
+                url = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return url;
+    }
+
+    /**
+     * eBay envía montos y porcentajes como texto ("12.99"); si no es numérico se usa 0.
+     */
+    private static double readDouble(JsonReader reader) throws IOException {
+        String texto = reader.nextString();
+        try {
+            return Double.parseDouble(texto);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
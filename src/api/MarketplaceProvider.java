@@ -0,0 +1,122 @@
+package api;
+
+import entities.Producto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 🔌 Fuente de datos de un marketplace (búsqueda, detalle, precios y vendedor).
+ *
+ * Las implementaciones se descubren con {@link java.util.ServiceLoader} a través de
+ * {@code META-INF/services/api.MarketplaceProvider}; {@link MarketplaceProviders}
+ * elige la activa. El token se pasa tal cual: un proveedor que no lo necesita lo ignora.
+ *
+ * Todas las operaciones son asíncronas y no deben fallar por errores de red: ante un
+ * problema devuelven un resultado vacío (igual que {@link conect_API_eBay}). La excepción
+ * es {@link #oldestSellerItem}, donde un resultado vacío significa "sin publicaciones en
+ * la categoría" y se recuerda: allí los errores completan el future con la excepción.
+ */
+public interface MarketplaceProvider {
+
+    /**
+     * Identificador corto usado en {@code -Dprims.marketplace.provider} (p. ej. "ebay").
+     */
+    String id();
+
+    /**
+     * Una página de resultados de búsqueda.
+     */
+    CompletableFuture<SearchPage<Producto>> searchPage(
+            String token, String query, int offset, int limit, SearchFilter filter);
+
+    /**
+     * Detalle de un item (descripción, envíos, cupones, atributos), o null si no se pudo obtener.
+     */
+    CompletableFuture<ItemDetail> itemDetail(String token, String itemId);
+
+    /**
+     * Precio actual de varios items; los que no se encuentran no aparecen en el mapa.
+     */
+    CompletableFuture<Map<String, Double>> prices(String token, Collection<String> itemIds);
+
+    /**
+     * Publicaciones de un vendedor tal como las devuelve la búsqueda.
+     */
+    CompletableFuture<List<ItemSummary>> sellerItems(String token, String seller, int limit);
+
+    /**
+     * Publicación más antigua del vendedor dentro de la categoría (no la fecha de alta
+     * de su cuenta). Por defecto revisa las primeras publicaciones del vendedor.
+     *
+     * A diferencia del resto de las operaciones, no oculta los errores: el future falla
+     * si falla la consulta (red, 429, circuito abierto) o si falta la categoría, para
+     * que quien llama no lo confunda con un vendedor sin publicaciones.
+     *
+     * @param categoryId categoría donde buscar; obligatoria
+     * @return la publicación (item null si no tiene ninguna en la categoría)
+     */
+    default CompletableFuture<OldestListing> oldestSellerItem(String token, String seller, String categoryId) {
+        if (categoryId == null || categoryId.isBlank()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Se necesita la categoría para buscar las publicaciones del vendedor"));
+        }
+        String categoria = categoryId.trim();
+        return sellerItems(token, seller, 200).thenApply(items -> {
+            ItemSummary masAntiguo = null;
+            int total = 0;
+            for (ItemSummary item : items) {
+                if (!categoria.equals(item.categoryId())) {
+                    continue;
+                }
+                total++;
+                if (item.itemCreationDate() == null) {
+                    continue;
+                }
+                // Fechas ISO-8601: el orden de texto es el cronológico
+                if (masAntiguo == null
+                        || item.itemCreationDate().compareTo(masAntiguo.itemCreationDate()) < 0) {
+                    masAntiguo = item;
+                }
+            }
+            return new OldestListing(masAntiguo, total);
+        });
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🧩 OPERACIONES DERIVADAS
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Precios de la primera página de resultados para una consulta.
+     */
+    default CompletableFuture<List<Double>> marketPrices(String token, String query) {
+        return searchPage(token, query, 0, 50, SearchFilter.none())
+                .thenApply(pagina -> {
+                    List<Double> precios = new ArrayList<>();
+                    for (Producto p : pagina.getItems()) {
+                        Double precio = p.getPriceHistory() != null ? p.getPriceHistory().getPrice() : null;
+                        if (precio != null && precio > 0) {
+                            precios.add(precio);
+                        }
+                    }
+                    return precios;
+                });
+    }
+
+    /**
+     * Recorre todas las páginas de una búsqueda bajo demanda.
+     */
+    default Stream<Producto> searchStream(String token, String query, int pageSize, SearchFilter filter) {
+        SearchPageSpliterator<Producto> spliterator = new SearchPageSpliterator<>(
+                (offset, limit) -> searchPage(token, query, offset, limit, filter),
+                pageSize);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+}
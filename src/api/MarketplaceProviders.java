@@ -0,0 +1,72 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 🔌 Registro del {@link MarketplaceProvider} activo.
+ *
+ * Los proveedores se descubren con {@link ServiceLoader}; se elige el indicado en
+ * {@code -Dprims.marketplace.provider} (por defecto "ebay"). Si no se encuentra, se usa
+ * el de eBay.
+ */
+public final class MarketplaceProviders {
+
+    public static final String PROPIEDAD = "prims.marketplace.provider";
+
+    private static volatile MarketplaceProvider actual;
+
+    private MarketplaceProviders() {
+    }
+
+    /**
+     * Proveedor en uso; se resuelve la primera vez que se pide.
+     */
+    public static MarketplaceProvider get() {
+        MarketplaceProvider proveedor = actual;
+        if (proveedor == null) {
+            synchronized (MarketplaceProviders.class) {
+                if (actual == null) {
+                    actual = cargar(System.getProperty(PROPIEDAD, EbayMarketplaceProvider.ID));
+                }
+                proveedor = actual;
+            }
+        }
+        return proveedor;
+    }
+
+    /**
+     * Reemplaza el proveedor en uso (por ejemplo, un {@link FakeMarketplaceProvider} en pruebas de carga).
+     */
+    public static void set(MarketplaceProvider proveedor) {
+        if (proveedor == null) {
+            throw new IllegalArgumentException("El proveedor no puede ser null");
+        }
+        actual = proveedor;
+        System.out.println("🔌 Proveedor de marketplace: " + proveedor.id());
+    }
+
+    /**
+     * Todos los proveedores registrados en {@code META-INF/services}.
+     */
+    public static List<MarketplaceProvider> disponibles() {
+        List<MarketplaceProvider> proveedores = new ArrayList<>();
+        ServiceLoader.load(MarketplaceProvider.class).forEach(proveedores::add);
+        return proveedores;
+    }
+
+    private static MarketplaceProvider cargar(String id) {
+        for (MarketplaceProvider proveedor : ServiceLoader.load(MarketplaceProvider.class)) {
+            if (proveedor.id().equalsIgnoreCase(id)) {
+                System.out.println("🔌 Proveedor de marketplace: " + proveedor.id());
+                return proveedor;
+            }
+        }
+
+        if (!id.equalsIgnoreCase(EbayMarketplaceProvider.ID)) {
+            System.out.println("⚠️ Proveedor de marketplace desconocido: " + id + "; se usa eBay");
+        }
+        return new EbayMarketplaceProvider();
+    }
+}
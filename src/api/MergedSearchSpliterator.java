@@ -0,0 +1,121 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Une varios recorridos de resultados (uno por marketplace) en uno solo, sin leer
+ * más de lo que el consumidor pide.
+ *
+ * Con un orden (p. ej. por precio) toma siempre el menor de los primeros de cada
+ * recorrido, que ya vienen ordenados; sin orden los intercala por posición, uno de
+ * cada recorrido por turno, para respetar el ranking propio de cada marketplace.
+ * Los repetidos (misma clave) se omiten: queda el primero que aparece.
+ */
+final class MergedSearchSpliterator<T> implements Spliterator<T> {
+
+    private final List<Fuente<T>> fuentes = new ArrayList<>();
+    private final Comparator<? super T> orden;
+    private final Function<? super T, ?> clave;
+    private final Set<Object> vistos = new HashSet<>();
+    private int turno;
+
+    /**
+     * @param orden null para intercalar por posición
+     */
+    MergedSearchSpliterator(List<Iterator<T>> recorridos, Comparator<? super T> orden, Function<? super T, ?> clave) {
+        for (Iterator<T> recorrido : recorridos) {
+            fuentes.add(new Fuente<>(recorrido));
+        }
+        this.orden = orden;
+        this.clave = clave;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (true) {
+            Fuente<T> elegida = orden != null ? menor() : porTurno();
+            if (elegida == null) {
+                return false;
+            }
+
+            T valor = elegida.tomar();
+            if (vistos.add(clave.apply(valor))) {
+                action.accept(valor);
+                return true;
+            }
+        }
+    }
+
+    private Fuente<T> porTurno() {
+        for (int i = 0; i < fuentes.size(); i++) {
+            int indice = (turno + i) % fuentes.size();
+            if (fuentes.get(indice).hayMas()) {
+                turno = indice + 1;
+                return fuentes.get(indice);
+            }
+        }
+        return null;
+    }
+
+    private Fuente<T> menor() {
+        Fuente<T> elegida = null;
+        for (Fuente<T> fuente : fuentes) {
+            if (fuente.hayMas() && (elegida == null || orden.compare(fuente.primero(), elegida.primero()) < 0)) {
+                elegida = fuente;
+            }
+        }
+        return elegida;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Un recorrido con su primer elemento ya leído (para poder compararlo).
+     */
+    private static final class Fuente<T> {
+        private final Iterator<T> recorrido;
+        private T primero;
+
+        Fuente(Iterator<T> recorrido) {
+            this.recorrido = recorrido;
+        }
+
+        boolean hayMas() {
+            if (primero == null && recorrido.hasNext()) {
+                primero = recorrido.next();
+            }
+            return primero != null;
+        }
+
+        T primero() {
+            return primero;
+        }
+
+        T tomar() {
+            T valor = primero;
+            primero = null;
+            return valor;
+        }
+    }
+}
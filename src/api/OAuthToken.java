@@ -0,0 +1,12 @@
+package api;
+
+/**
+ * Token de aplicación de eBay junto con el instante (epoch millis) en que vence,
+ * calculado a partir del {@code expires_in} de la respuesta OAuth.
+ */
+public record OAuthToken(String value, long expiresAtMillis) {
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,21 @@
+package api;
+
+/**
+ * 🏷️ Publicación más antigua de un vendedor dentro de una categoría.
+ *
+ * No es la fecha de alta de la cuenta (la Browse API no la expone): sólo dice desde
+ * cuándo publica el vendedor en esa categoría, entre sus publicaciones activas.
+ *
+ * @param item  la publicación, o null si no tiene ninguna en la categoría
+ * @param total cantidad de publicaciones del vendedor en la categoría
+ */
+public record OldestListing(ItemSummary item, int total) {
+
+    /**
+     * true si el vendedor tiene más publicaciones de las que la API deja recorrer
+     * (10 000): {@link #item()} es la más antigua alcanzable, y puede haber otras anteriores.
+     */
+    public boolean acotado() {
+        return total > SearchPageSpliterator.MAX_RESULTADOS;
+    }
+}
@@ -0,0 +1,15 @@
+package api;
+
+/**
+ * 💲 Monto con su moneda, tal como lo informa eBay ({@code {"value": "12.99", "currency": "USD"}}).
+ */
+public record Price(double value, String currency) {
+
+    public Price {
+        currency = currency != null ? currency.intern() : "USD";
+    }
+
+    public boolean isPositive() {
+        return value > 0.0;
+    }
+}
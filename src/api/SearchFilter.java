@@ -0,0 +1,176 @@
+package api;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filtros de búsqueda que se envían a la Browse API (filter, category_ids y sort),
+ * para que eBay devuelva sólo los productos que se van a mostrar.
+ *
+ * Es inmutable: cada método {@code with...} devuelve una copia modificada.
+ */
+public final class SearchFilter {
+
+    /**
+     * Condición del producto, traducida a {@code conditionIds} de eBay.
+     */
+    public enum Condition {
+        NEW("1000"),
+        USED("3000|4000|5000|6000");
+
+        private final String conditionIds;
+
+        Condition(String conditionIds) {
+            this.conditionIds = conditionIds;
+        }
+
+        public String getConditionIds() {
+            return conditionIds;
+        }
+    }
+
+    /**
+     * Ordenamiento soportado por la Browse API ({@code null} = mejor coincidencia).
+     */
+    public enum Sort {
+        BEST_MATCH(null),
+        PRICE_ASC("price"),
+        PRICE_DESC("-price"),
+        NEWLY_LISTED("newlyListed");
+
+        private final String apiValue;
+
+        Sort(String apiValue) {
+            this.apiValue = apiValue;
+        }
+
+        public String getApiValue() {
+            return apiValue;
+        }
+    }
+
+    private static final SearchFilter NONE = new SearchFilter(null, null, null, null, Sort.BEST_MATCH, "USD");
+
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Condition condition;
+    private final String categoryId;
+    private final Sort sort;
+    private final String currency;
+
+    private SearchFilter(Double minPrice, Double maxPrice, Condition condition,
+                         String categoryId, Sort sort, String currency) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.condition = condition;
+        this.categoryId = categoryId;
+        this.sort = sort != null ? sort : Sort.BEST_MATCH;
+        this.currency = currency;
+    }
+
+    /**
+     * Búsqueda sin filtros (orden por mejor coincidencia).
+     */
+    public static SearchFilter none() {
+        return NONE;
+    }
+
+    public SearchFilter withMinPrice(Double minPrice) {
+        return new SearchFilter(minPrice, maxPrice, condition, categoryId, sort, currency);
+    }
+
+    public SearchFilter withMaxPrice(Double maxPrice) {
+        return new SearchFilter(minPrice, maxPrice, condition, categoryId, sort, currency);
+    }
+
+    public SearchFilter withCondition(Condition condition) {
+        return new SearchFilter(minPrice, maxPrice, condition, categoryId, sort, currency);
+    }
+
+    public SearchFilter withCategory(String categoryId) {
+        return new SearchFilter(minPrice, maxPrice, condition, categoryId, sort, currency);
+    }
+
+    public SearchFilter withSort(Sort sort) {
+        return new SearchFilter(minPrice, maxPrice, condition, categoryId, sort, currency);
+    }
+
+    public SearchFilter withCurrency(String currency) {
+        return new SearchFilter(minPrice, maxPrice, condition, categoryId, sort, currency);
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public String getCategoryId() {
+        return categoryId;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Genera los parámetros de URL (empezando por {@code &}) o cadena vacía si no hay filtros.
+     * Ejemplo: {@code &filter=price:[10..50],priceCurrency:USD,conditionIds:{1000}&sort=price}
+     */
+    public String toQueryString() {
+        StringBuilder query = new StringBuilder();
+
+        List<String> filtros = new ArrayList<>();
+        if (minPrice != null || maxPrice != null) {
+            filtros.add("price:[" + formatPrice(minPrice) + ".." + formatPrice(maxPrice) + "]");
+            if (currency != null) {
+                filtros.add("priceCurrency:" + currency);
+            }
+        }
+        if (condition != null) {
+            filtros.add("conditionIds:{" + condition.getConditionIds() + "}");
+        }
+        if (!filtros.isEmpty()) {
+            query.append("&filter=").append(encode(String.join(",", filtros)));
+        }
+
+        if (categoryId != null && !categoryId.isBlank()) {
+            query.append("&category_ids=").append(encode(categoryId.trim()));
+        }
+
+        if (sort.getApiValue() != null) {
+            query.append("&sort=").append(encode(sort.getApiValue()));
+        }
+
+        return query.toString();
+    }
+
+    private static String formatPrice(Double price) {
+        if (price == null) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "%.2f", price);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toQueryString();
+    }
+}
@@ -0,0 +1,56 @@
+package api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados de la Browse API (parámetros offset/limit).
+ */
+public final class SearchPage<T> {
+
+    private final List<T> items;
+    private final int offset;
+    private final int limit;
+    private final int total;
+
+    public SearchPage(List<T> items, int offset, int limit, int total) {
+        this.items = items != null ? items : Collections.emptyList();
+        this.offset = offset;
+        this.limit = limit;
+        this.total = total;
+    }
+
+    public static <T> SearchPage<T> empty(int offset, int limit) {
+        return new SearchPage<>(Collections.emptyList(), offset, limit, 0);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Offset de la siguiente página.
+     */
+    public int nextOffset() {
+        return offset + limit;
+    }
+
+    /**
+     * Indica si eBay reporta más resultados después de esta página.
+     */
+    public boolean hasMore() {
+        return !items.isEmpty() && nextOffset() < total;
+    }
+}
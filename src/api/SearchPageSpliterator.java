@@ -0,0 +1,97 @@
+package api;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Recorre los resultados de búsqueda página por página.
+ *
+ * La primera página se pide al empezar a consumir; cada vez que llega una página
+ * se lanza en segundo plano la petición de la siguiente, de modo que el consumidor
+ * rara vez espera a la red. Las páginas consumidas no se retienen en memoria.
+ */
+final class SearchPageSpliterator<T> implements Spliterator<T> {
+
+    // La Browse API no permite pasar de 10 000 resultados (offset + limit)
+    static final int MAX_RESULTADOS = 10_000;
+
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        CompletableFuture<SearchPage<T>> fetch(int offset, int limit);
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final int pageSize;
+
+    private Iterator<T> actual;
+    private CompletableFuture<SearchPage<T>> siguiente;
+    private boolean agotado;
+
+    SearchPageSpliterator(PageFetcher<T> fetcher, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser >= 1");
+        }
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (actual == null || !actual.hasNext()) {
+            if (agotado) {
+                return false;
+            }
+            if (siguiente == null) {
+                siguiente = pedir(0);
+            }
+
+            SearchPage<T> pagina = siguiente.join();
+            actual = pagina.getItems().iterator();
+            siguiente = null;
+
+            if (pagina.hasMore() && pagina.nextOffset() < MAX_RESULTADOS) {
+                // Prefetch de la siguiente página mientras se consume esta
+                siguiente = pedir(pagina.nextOffset());
+            } else {
+                agotado = true;
+            }
+        }
+
+        action.accept(actual.next());
+        return true;
+    }
+
+    /**
+     * Pide ya la primera página (sin esperarla), para que varios recorridos que se
+     * consumen juntos hagan sus primeras peticiones en paralelo.
+     */
+    SearchPageSpliterator<T> iniciar() {
+        if (actual == null && siguiente == null && !agotado) {
+            siguiente = pedir(0);
+        }
+        return this;
+    }
+
+    private CompletableFuture<SearchPage<T>> pedir(int offset) {
+        int limite = Math.min(pageSize, MAX_RESULTADOS - offset);
+        return fetcher.fetch(offset, limite);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // Las páginas deben pedirse en orden; no se divide
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,11 @@
+package api;
+
+/**
+ * 👤 Datos del vendedor que acompañan a cada resultado de búsqueda.
+ */
+public record SellerSummary(String username, int feedbackScore, double feedbackPercentage) {
+
+    public SellerSummary {
+        username = username != null ? username.intern() : "Desconocido";
+    }
+}
@@ -0,0 +1,23 @@
+package api;
+
+/**
+ * 📦 Opción de envío del detalle de un item. Los costos son null si eBay no los informa.
+ */
+public record ShippingOption(
+        String type,
+        String carrier,
+        Price cost,
+        int quantityUsedForEstimate,
+        String minEstimatedDeliveryDate,
+        String maxEstimatedDeliveryDate,
+        Price additionalCostPerUnit,
+        String costType
+) {
+
+    /**
+     * Costo del envío; 0 si no tiene.
+     */
+    public double costValue() {
+        return cost != null ? cost.value() : 0.0;
+    }
+}
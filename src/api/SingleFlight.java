@@ -0,0 +1,71 @@
+package api;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa peticiones idénticas que están en vuelo al mismo tiempo.
+ *
+ * El primer llamador de una clave lanza la tarea; los que llegan mientras sigue en curso
+ * reciben el mismo resultado en lugar de hacer su propia petición HTTP.
+ * Al terminar la clave se libera, así que la siguiente llamada vuelve a consultar.
+ */
+final class SingleFlight<T> {
+
+    private final ConcurrentHashMap<String, CompletableFuture<T>> enVuelo = new ConcurrentHashMap<>();
+
+    // Llamadas que se unieron a una petición ya en curso
+    private final LongAdder compartidas = new LongAdder();
+
+    /**
+     * Ejecuta la tarea para la clave, o se une a la que ya está en curso.
+     * Cada llamador recibe su propia copia del futuro, así cancelar una no afecta a las demás.
+     */
+    CompletableFuture<T> ejecutar(String clave, Supplier<CompletableFuture<T>> tarea) {
+        CompletableFuture<T> nuevo = new CompletableFuture<>();
+        CompletableFuture<T> existente = enVuelo.putIfAbsent(clave, nuevo);
+        if (existente != null) {
+            compartidas.increment();
+            return existente.copy();
+        }
+
+        try {
+            tarea.get().whenComplete((valor, error) -> {
+                // Se libera antes de completar para que nadie se una a un resultado ya entregado
+                enVuelo.remove(clave, nuevo);
+                if (error != null) {
+                    nuevo.completeExceptionally(error);
+                } else {
+                    nuevo.complete(valor);
+                }
+            });
+        } catch (Throwable t) {
+            enVuelo.remove(clave, nuevo);
+            nuevo.completeExceptionally(t);
+        }
+
+        return nuevo.copy();
+    }
+
+    int getEnVuelo() {
+        return enVuelo.size();
+    }
+
+    long getCompartidas() {
+        return compartidas.sum();
+    }
+
+    /**
+     * Normaliza un texto de búsqueda para usarlo como parte de la clave
+     * (minúsculas, sin espacios repetidos ni en los extremos).
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,15 +1,17 @@
 package api;
 
 import com.google.gson.*;
+import entities.PriceHistory;
+import entities.Producto;
+import utils.CircuitBreaker;
 import utils.ErrorHandler;
 import utils.NotificationManager;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -18,13 +20,37 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class conect_API_eBay {
 
-    private static final String BASE_URL = "https://api.ebay.com/buy/browse/v1/item_summary/search";
-    private static final String BASE_URL_PRO = "https://api.ebay.com/buy/browse/v1/item/";
+    // Raíz de la API; -Dprims.ebay.baseUrl=http://localhost:8089 apunta a EbayStubServer
+    private static final String API_ROOT_EBAY = "https://api.ebay.com";
+    private static final String API_ROOT = apiRoot();
+    private static final String BASE_URL = API_ROOT + "/buy/browse/v1/item_summary/search";
+    private static final String BASE_URL_PRO = API_ROOT + "/buy/browse/v1/item/";
+    private static final String TOKEN_URL = API_ROOT + "/identity/v1/oauth2/token";
+    private static final String RATE_LIMIT_URL = API_ROOT + "/developer/analytics/v1_beta/rate_limit/?api_context=buy&api_name=browse";
+    // Cliente único: HTTP/2 multiplexa las peticiones sobre pocas conexiones reutilizadas
     private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
             .connectTimeout(Duration.ofSeconds(30))  // Timeout de conexión
             .build();
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
@@ -36,13 +62,321 @@ public class conect_API_eBay {
     private static final int MAX_RETRIES = 3;
     private static final int TIMEOUT_SECONDS = 30;
 
+    // Máximo de peticiones simultáneas hacia eBay (configurable)
+    private static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    // Límite de resultados por página que acepta la Browse API
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Máximo de ids que acepta getItems (item/?item_ids=) por petición
+    private static final int MAX_IDS_POR_LOTE = 20;
+    private static final InFlightLimiter LIMITER = new InFlightLimiter(DEFAULT_MAX_IN_FLIGHT);
+
+    // Consultas idénticas en curso (mismo modelo o mismo vendedor) comparten una sola petición
+    private static final SingleFlight<List<Double>> PRECIOS_EN_VUELO = new SingleFlight<>();
+    private static final SingleFlight<List<ItemSummary>> VENDEDOR_EN_VUELO = new SingleFlight<>();
+    private static final SingleFlight<OldestListing> ANTIGUEDAD_EN_VUELO = new SingleFlight<>();
+
+    // Caché en disco de búsquedas y detalles: un reinicio no vuelve a descargar lo vigente
+    private static final DiskResponseCache RESPONSE_CACHE = DiskResponseCache.abrirPorDefecto();
+    private static final Duration VIGENCIA_BUSQUEDA = Duration.ofMinutes(15);
+    private static final Duration VIGENCIA_ITEM = Duration.ofMinutes(5);
+
+    // Un circuit breaker por familia de endpoints: 5 fallos seguidos lo abren por 30 s
+    private static final Map<EbayRateLimiter.Endpoint, CircuitBreaker> BREAKERS = new EnumMap<>(EbayRateLimiter.Endpoint.class);
+
+    static {
+        for (EbayRateLimiter.Endpoint endpoint : EbayRateLimiter.Endpoint.values()) {
+            BREAKERS.put(endpoint, new CircuitBreaker("eBay " + endpoint.name(), 5, Duration.ofSeconds(30)));
+        }
+    }
+
     public conect_API_eBay() {
     }
 
+    private static String apiRoot() {
+        String url = System.getProperty("prims.ebay.baseUrl", API_ROOT_EBAY).trim();
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        if (!url.equals(API_ROOT_EBAY)) {
+            System.out.println("🔧 API de eBay redirigida a " + url);
+        }
+        return url;
+    }
+
+    /**
+     * Raíz de la API en uso (por defecto {@code https://api.ebay.com}).
+     */
+    public static String getApiRoot() {
+        return API_ROOT;
+    }
+
+    /**
+     * Indica si se habla con eBay de verdad y no con un servidor de pruebas.
+     */
+    public static boolean usaApiReal() {
+        return API_ROOT.equals(API_ROOT_EBAY);
+    }
+
+    /**
+     * Ajusta cuántas peticiones pueden estar en vuelo al mismo tiempo.
+     * Las que excedan el límite esperan en cola sin ocupar hilos.
+     */
+    public static void setMaxInFlight(int maximo) {
+        LIMITER.setMaximo(maximo);
+    }
+
+    public static int getMaxInFlight() {
+        return LIMITER.getMaximo();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🚀 ENVÍO DE PETICIONES (compartido sync/async)
+    // ═══════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    private interface ParserRespuesta<B, T> {
+        T parse(HttpResponse<B> response) throws Exception;
+    }
+
+    /**
+     * Cómo entregar el cuerpo al parser: como texto o como stream.
+     */
+    private interface Cuerpo<B> {
+        B desdeBytes(byte[] bytes);
+
+        default B desdeStream(InputStream in) throws IOException {
+            try (in) {
+                return desdeBytes(in.readAllBytes());
+            }
+        }
+    }
+
+    private static final Cuerpo<String> TEXTO = bytes -> new String(bytes, StandardCharsets.UTF_8);
+
+    private static final Cuerpo<InputStream> STREAM = new Cuerpo<>() {
+        @Override
+        public InputStream desdeBytes(byte[] bytes) {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public InputStream desdeStream(InputStream in) {
+            return in;
+        }
+    };
+
+    /**
+     * Dos intentos con backoff; una cuota diaria agotada no se arregla reintentando.
+     */
+    private static <T> CompletableFuture<T> reintentarAsync(
+            ErrorHandler.AsyncRetryableOperation<T> operacion, String nombre) {
+        return ErrorHandler.retryOperationAsync(operacion, 2, nombre,
+                e -> !(e instanceof EbayRateLimiter.QuotaExceededException));
+    }
+
+    /**
+     * Envía la petición con {@code sendAsync} respetando el límite de peticiones en vuelo.
+     */
+    private static <T> CompletableFuture<T> enviarAsync(HttpRequest request, ParserRespuesta<String, T> parser) {
+        return enviarAsync(request, TEXTO, parser);
+    }
+
+    /**
+     * Igual que {@link #enviarAsync(HttpRequest, ParserRespuesta)} pero entrega el cuerpo
+     * como {@link InputStream} para decodificarlo en streaming.
+     */
+    private static <T> CompletableFuture<T> enviarStreamAsync(HttpRequest request, ParserRespuesta<InputStream, T> parser) {
+        return enviarAsync(request, STREAM, parser);
+    }
+
+    /**
+     * Las búsquedas y detalles de items pasan por la caché en disco; el resto va directo a la red.
+     */
+    private static <B, T> CompletableFuture<T> enviarAsync(
+            HttpRequest request,
+            Cuerpo<B> cuerpo,
+            ParserRespuesta<B, T> parser) {
+        EbayRateLimiter.Endpoint endpoint = EbayRateLimiter.Endpoint.forUri(request.uri());
+        if (!RESPONSE_CACHE.isActivo() || endpoint == EbayRateLimiter.Endpoint.TOKEN
+                || endpoint == EbayRateLimiter.Endpoint.ANALYTICS || !"GET".equals(request.method())) {
+            return enviarRed(request, endpoint, response -> parser.parse(new DecodedResponse<>(
+                    request, response.statusCode(), response.headers(), cuerpo.desdeStream(response.body()))));
+        }
+
+        // La misma URL devuelve resultados distintos según el marketplace
+        String clave = request.headers().firstValue("X-EBAY-C-MARKETPLACE-ID")
+                .map(mercado -> mercado + " " + request.uri())
+                .orElse(request.uri().toString());
+        Duration vigencia = endpoint == EbayRateLimiter.Endpoint.SEARCH ? VIGENCIA_BUSQUEDA : VIGENCIA_ITEM;
+        DiskResponseCache.Entrada entrada = RESPONSE_CACHE.get(clave).orElse(null);
+
+        // Vigente: se responde desde disco sin gastar cuota
+        if (entrada != null && entrada.isFresh()) {
+            byte[] guardado = RESPONSE_CACHE.leer(entrada);
+            if (guardado != null) {
+                try {
+                    return CompletableFuture.completedFuture(
+                            parser.parse(new DecodedResponse<>(request, 200, null, cuerpo.desdeBytes(guardado))));
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+        }
+
+        // Vencida pero con ETag/Last-Modified: petición condicional
+        HttpRequest envio = entrada != null && entrada.isRevalidable()
+                ? RESPONSE_CACHE.condicional(request, entrada)
+                : request;
+
+        return enviarRed(envio, endpoint, response -> {
+            byte[] bytes;
+            try (InputStream in = response.body()) {
+                bytes = in.readAllBytes();
+            }
+            int status = response.statusCode();
+
+            if (status == 304 && entrada != null) {
+                byte[] cacheado = RESPONSE_CACHE.leer(entrada);
+                if (cacheado == null) {
+                    throw new IOException("Respuesta 304 sin copia en caché para " + clave);
+                }
+                RESPONSE_CACHE.renovar(clave, entrada, response.headers(), vigencia);
+                bytes = cacheado;
+                status = 200;
+            } else if (status == 200) {
+                RESPONSE_CACHE.put(clave, bytes, response.headers(), vigencia);
+            }
+
+            return parser.parse(new DecodedResponse<>(request, status, response.headers(), cuerpo.desdeBytes(bytes)));
+        });
+    }
+
+    /**
+     * Envío real por el {@link #CLIENT} compartido. Siempre pide gzip/deflate y entrega
+     * al parser el cuerpo ya descomprimido como stream.
+     */
+    private static <T> CompletableFuture<T> enviarRed(
+            HttpRequest request,
+            EbayRateLimiter.Endpoint endpoint,
+            ParserRespuesta<InputStream, T> parser) {
+        // Con eBay caído se falla al instante, sin gastar cuota ni ocupar cupo
+        CircuitBreaker breaker = BREAKERS.get(endpoint);
+        if (!breaker.intentar()) {
+            return CompletableFuture.failedFuture(new CircuitBreaker.CircuitOpenException(breaker.getNombre()));
+        }
+
+        HttpRequest comprimido = request.headers().firstValue("Accept-Encoding").isPresent()
+                ? request
+                : HttpRequest.newBuilder(request, (nombre, valor) -> true)
+                        .header("Accept-Encoding", "gzip, deflate")
+                        .build();
+
+        // Primero el token del rate limiter, luego el cupo de peticiones en vuelo.
+        // El cupo se libera cuando el cuerpo ya fue leído, no sólo al llegar las cabeceras
+        return EbayRateLimiter.acquireAsync(endpoint)
+                .whenComplete((v, sinCuota) -> {
+                    if (sinCuota != null) {
+                        breaker.abandonar();
+                    }
+                })
+                .thenCompose(v -> LIMITER.ejecutar(() -> CLIENT.sendAsync(comprimido, HttpResponse.BodyHandlers.ofInputStream())
+                        .whenComplete((response, errorRed) -> {
+                            if (errorRed != null) {
+                                breaker.fallo();
+                            } else {
+                                breaker.registrar(response.statusCode());
+                            }
+                        })
+                        .thenApply(response -> {
+                            EbayRateLimiter.onResponse(endpoint, response.statusCode());
+                            try {
+                                return parser.parse(new DecodedResponse<>(
+                                        request, response.statusCode(), response.headers(), descomprimir(response)));
+                            } catch (Exception e) {
+                                throw new CompletionException(e);
+                            }
+                        })));
+    }
+
+    /**
+     * Envuelve el cuerpo según {@code Content-Encoding} (gzip o deflate).
+     */
+    private static InputStream descomprimir(HttpResponse<InputStream> response) throws IOException {
+        InputStream body = response.body();
+        int status = response.statusCode();
+        if (status == 204 || status == 304) {
+            return body; // sin cuerpo que descomprimir
+        }
+
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "gzip":
+                return new GZIPInputStream(body, 8192);
+            case "deflate":
+                return new InflaterInputStream(body);
+            default:
+                return body;
+        }
+    }
+
+    /**
+     * Versión bloqueante: espera el resultado de {@link #enviarAsync}.
+     */
+    private static <T> T enviar(HttpRequest request, ParserRespuesta<String, T> parser) throws Exception {
+        return esperar(enviarAsync(request, parser));
+    }
+
+    /**
+     * Espera un futuro y relanza el error real si falla.
+     */
+    private static <T> T esperar(CompletableFuture<T> futuro) throws Exception {
+        try {
+            return futuro.get();
+        } catch (ExecutionException e) {
+            throw causa(e);
+        }
+    }
+
+    /**
+     * Verifica que la respuesta sea 200 y pasa el cuerpo directo al parser de JSON.
+     */
+    private static JsonObject leerJson(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                String detalle = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                throw new IOException("Error HTTP " + response.statusCode() + ": " + detalle);
+            }
+            return JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+    }
+
+    /**
+     * Desenvuelve CompletionException/ExecutionException para conservar el error real.
+     */
+    private static Exception causa(Throwable t) {
+        Throwable actual = t;
+        while ((actual instanceof CompletionException || actual instanceof ExecutionException)
+                && actual.getCause() != null) {
+            actual = actual.getCause();
+        }
+        return actual instanceof Exception ? (Exception) actual : new Exception(actual);
+    }
+
     /**
      * 🔑 Obtiene token de acceso con manejo de errores
      */
     public static String getAccesToken(String CLIENT_ID, String CLIENT_SECRET) {
+        OAuthToken token = getAccessTokenWithExpiry(CLIENT_ID, CLIENT_SECRET);
+        return token != null ? token.value() : null;
+    }
+
+    /**
+     * 🔑 Igual que {@link #getAccesToken} pero conserva el vencimiento real
+     * ({@code expires_in}) que informa eBay.
+     */
+    public static OAuthToken getAccessTokenWithExpiry(String CLIENT_ID, String CLIENT_SECRET) {
         try {
             return ErrorHandler.retryOperation(() -> {
                 return getAccessTokenInternal(CLIENT_ID, CLIENT_SECRET);
@@ -57,8 +391,7 @@ public class conect_API_eBay {
     /**
      * Implementación interna de obtención de token
      */
-    private static String getAccessTokenInternal(String CLIENT_ID, String CLIENT_SECRET) throws Exception {
-        String tokenUrl = "https://api.ebay.com/identity/v1/oauth2/token";
+    private static OAuthToken getAccessTokenInternal(String CLIENT_ID, String CLIENT_SECRET) throws Exception {
         String scope = "https://api.ebay.com/oauth/api_scope";
 
         String body = "grant_type=" + URLEncoder.encode("client_credentials", "UTF-8")
@@ -68,481 +401,598 @@ public class conect_API_eBay {
                 (CLIENT_ID + ":" + CLIENT_SECRET).getBytes(StandardCharsets.UTF_8));
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(tokenUrl))
+                .uri(URI.create(TOKEN_URL))
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .header("Authorization", "Basic " + credentials)
                 .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
 
-        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        return enviar(request, response -> {
+            if (response.statusCode() == 200 && response.body().contains("\"access_token\"")) {
+                JsonObject json = gson.fromJson(response.body(), JsonObject.class);
+                String accessToken = json.get("access_token").getAsString();
 
-        if (response.statusCode() == 200 && response.body().contains("\"access_token\"")) {
-            String json = response.body();
-            int start = json.indexOf("\"access_token\":\"") + 16;
-            int end = json.indexOf("\"", start);
-            System.out.println("✅ Conexión exitosa con la API de eBay");
-            return json.substring(start, end);
-        } else {
-            throw new IOException("Error HTTP " + response.statusCode() + ": " + response.body());
-        }
+                // eBay informa la vida útil en segundos (normalmente 7200)
+                long expiresIn = json.has("expires_in") ? json.get("expires_in").getAsLong() : 7200;
+                System.out.println("✅ Conexión exitosa con la API de eBay");
+                return new OAuthToken(accessToken, System.currentTimeMillis() + expiresIn * 1000);
+            } else {
+                throw new IOException("Error HTTP " + response.statusCode() + ": " + response.body());
+            }
+        });
     }
 
     /**
-     * 🔍 Busca productos con manejo robusto de errores
+     * 📊 Consulta a eBay (Analytics {@code getRateLimits}) cuánto queda de la cuota diaria de
+     * la Browse API y corrige con eso los contadores de {@link EbayRateLimiter}. Búsquedas y
+     * detalles comparten ese recurso. Los errores sólo se registran.
      */
+    public static CompletableFuture<Void> sincronizarCuotasAsync(String token) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(RATE_LIMIT_URL))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .GET()
+                .build();
+
+        return enviarAsync(request, response -> {
+            if (response.statusCode() != 200) {
+                throw new IOException("Error HTTP " + response.statusCode() + ": " + response.body());
+            }
+            aplicarCuotas(gson.fromJson(response.body(), JsonObject.class));
+            return (Void) null;
+        }).exceptionally(ex -> {
+            ErrorHandler.logWarning("⚠️ No se pudo consultar la cuota en eBay: " + causa(ex).getMessage());
+            return null;
+        });
+    }
+
+    private static void aplicarCuotas(JsonObject json) {
+        if (json == null || !json.has("rateLimits")) {
+            return;
+        }
+        for (JsonElement api : json.getAsJsonArray("rateLimits")) {
+            JsonObject apiJson = api.getAsJsonObject();
+            if (!apiJson.has("resources")) {
+                continue;
+            }
+            for (JsonElement recurso : apiJson.getAsJsonArray("resources")) {
+                JsonObject recursoJson = recurso.getAsJsonObject();
+                if (!"buy.browse".equalsIgnoreCase(ItemDetailMapper.texto(recursoJson, "name", "")) || !recursoJson.has("rates")) {
+                    continue;
+                }
+                for (JsonElement tasa : recursoJson.getAsJsonArray("rates")) {
+                    JsonObject tasaJson = tasa.getAsJsonObject();
+                    // La ventana diaria (86400 s) es la que modela el limitador
+                    if (!tasaJson.has("limit") || !tasaJson.has("remaining")
+                            || (tasaJson.has("timeWindow") && tasaJson.get("timeWindow").getAsLong() != 86400)) {
+                        continue;
+                    }
+                    long limite = tasaJson.get("limit").getAsLong();
+                    long restantes = tasaJson.get("remaining").getAsLong();
+                    // Búsqueda y detalle gastan esta misma cuota (ITEM la comparte con SEARCH)
+                    EbayRateLimiter.sincronizar(EbayRateLimiter.Endpoint.SEARCH, limite, restantes);
+                }
+            }
+        }
+    }
+
     /**
      * 🔍 Busca productos aplicando filtros avanzados.
+     * Precio, condición, categoría y orden se resuelven del lado de eBay.
      */
-    public static JsonArray browseProducts(
+    public static List<ItemSummary> browseProducts(
             String token,
             String palabra,
             int limite,
-            Double minPrice,
-            Double maxPrice,
-            String condition,
-            String category
+            SearchFilter filtro
     ) {
         try {
             if (token == null || token.isEmpty()) {
                 NotificationManager.error("🔑 Token de autenticación no válido");
-                return new JsonArray();
+                return List.of();
             }
 
             if (palabra == null || palabra.trim().isEmpty()) {
                 NotificationManager.warning("⚠️ Debes ingresar un término de búsqueda");
-                return new JsonArray();
+                return List.of();
             }
 
-            return ErrorHandler.retryOperation(() ->
-                            browseProductsInternal(
-                                    token, palabra, limite,
-                                    minPrice, maxPrice, condition, category
-                            ),
-                    2,
-                    "buscar productos en eBay");
+            return esperar(browseProductsInternal(token, palabra, limite, filtro));
 
         } catch (Exception e) {
             ErrorHandler.handleSearchError(e);
-            return new JsonArray();
+            return List.of();
         }
     }
 
     /**
-     * Implementación interna de búsqueda de productos
+     * 🔍 Versión asíncrona de {@link #browseProducts}: no ocupa un hilo mientras espera a eBay.
+     * Ante un error notifica al usuario y completa con una lista vacía.
      */
-    private static JsonArray browseProductsInternal(
+    public static CompletableFuture<List<ItemSummary>> browseProductsAsync(
             String token,
             String palabra,
             int limite,
-            Double minPrice,
-            Double maxPrice,
-            String condition,
-            String category
-    ) throws Exception {
-        JsonArray resultados = new JsonArray();
-
-        String query = URLEncoder.encode(palabra, StandardCharsets.UTF_8);
-        String url = BASE_URL + "?q=" + query + "&limit=" + limite + "&offset=0";
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", "Bearer " + token)
-                .header("Accept", "application/json")
-                .header("X-EBAY-C-MARKETPLACE-ID", "EBAY_US")
-                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
-                .GET()
-                .build();
-
-        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-
-        // Verificar código de respuesta
-        if (response.statusCode() != 200) {
-            throw new IOException("Error HTTP " + response.statusCode() + ": " + response.body());
+            SearchFilter filtro
+    ) {
+        if (token == null || token.isEmpty()) {
+            NotificationManager.error("🔑 Token de autenticación no válido");
+            return CompletableFuture.completedFuture(List.of());
         }
 
-        JsonObject json = gson.fromJson(response.body(), JsonObject.class);
-
-        if (json.has("itemSummaries")) {
-            JsonArray items = json.getAsJsonArray("itemSummaries");
-            System.out.println("✅ Encontrados " + items.size() + " resultados para: " + palabra);
-
-            for (JsonElement itemElem : items) {
-                JsonObject item = itemElem.getAsJsonObject();
-                JsonObject nuevo = new JsonObject();
-
-                try {
-                    // ID y título
-                    nuevo.addProperty("itemId",
-                            item.has("itemId") ? item.get("itemId").getAsString().replace("|", "%7C") : "");
-                    nuevo.addProperty("title",
-                            item.has("title") ? item.get("title").getAsString() : "Sin título");
-
-                    // Precio
-                    if (item.has("price") && item.get("price").isJsonObject()) {
-                        JsonObject price = item.getAsJsonObject("price");
-                        nuevo.addProperty("price",
-                                price.has("value") ? price.get("value").getAsString() : "0");
-                        nuevo.addProperty("currency",
-                                price.has("currency") ? price.get("currency").getAsString() : "USD");
-                    }
-
-                    // Categorías
-                    if (item.has("categories") && item.get("categories").isJsonArray()) {
-                        JsonArray categorias = new JsonArray();
-                        for (JsonElement cat : item.getAsJsonArray("categories")) {
-                            if (cat.isJsonObject()) {
-                                JsonObject catObj = cat.getAsJsonObject();
-                                JsonObject simpleCat = new JsonObject();
-                                simpleCat.addProperty("categoryId",
-                                        catObj.has("categoryId") ? catObj.get("categoryId").getAsString() : "");
-                                simpleCat.addProperty("categoryName",
-                                        catObj.has("categoryName") ? catObj.get("categoryName").getAsString() : "");
-                                categorias.add(simpleCat);
-                            }
-                        }
-                        nuevo.add("categories", categorias);
-                    }
-
-                    // Condición
-                    if (item.has("conditionId") && item.has("condition")) {
-                        JsonObject condicion = new JsonObject();
-                        condicion.addProperty("conditionId", item.get("conditionId").getAsString());
-                        condicion.addProperty("condition", item.get("condition").getAsString());
-                        nuevo.add("condition", condicion);
-                    }
-
-                    // Imágenes
-                    JsonArray allImages = new JsonArray();
-                    if (item.has("image") && item.get("image").isJsonObject()) {
-                        JsonObject img = item.getAsJsonObject("image");
-                        if (img.has("imageUrl")) {
-                            allImages.add(img.get("imageUrl").getAsString());
-                        }
-                    }
-                    if (item.has("additionalImages") && item.get("additionalImages").isJsonArray()) {
-                        JsonArray adicionales = item.getAsJsonArray("additionalImages");
-                        for (JsonElement addElem : adicionales) {
-                            if (addElem.isJsonObject()) {
-                                JsonObject add = addElem.getAsJsonObject();
-                                if (add.has("imageUrl")) {
-                                    allImages.add(add.get("imageUrl").getAsString());
-                                }
-                            }
-                        }
-                    }
-                    if (allImages.size() == 0) {
-                        allImages.add("Sin imágenes disponibles");
-                    }
-                    nuevo.add("images", allImages);
-
-                    // Vendedor
-                    if (item.has("seller") && item.get("seller").isJsonObject()) {
-                        JsonObject seller = item.getAsJsonObject("seller");
-                        JsonObject vendedor = new JsonObject();
-                        vendedor.addProperty("username",
-                                seller.has("username") ? seller.get("username").getAsString() : "Desconocido");
-                        vendedor.addProperty("feedbackPercentage",
-                                seller.has("feedbackPercentage") ? seller.get("feedbackPercentage").getAsString() : "N/A");
-                        vendedor.addProperty("feedbackScore",
-                                seller.has("feedbackScore") ? seller.get("feedbackScore").getAsInt() : 0);
-                        nuevo.add("seller", vendedor);
-                    }
-
-                    // Otros campos
-                    nuevo.addProperty("topRatedBuyingExperience",
-                            item.has("topRatedBuyingExperience") && item.get("topRatedBuyingExperience").isJsonPrimitive()
-                                    ? item.get("topRatedBuyingExperience").getAsBoolean() : false);
-
-                    if (item.has("itemCreationDate") && item.get("itemCreationDate").isJsonPrimitive()) {
-                        nuevo.addProperty("itemCreationDate", item.get("itemCreationDate").getAsString());
-                    }
-
-                    nuevo.addProperty("itemWebUrl",
-                            item.has("itemWebUrl") ? item.get("itemWebUrl").getAsString() : "");
+        if (palabra == null || palabra.trim().isEmpty()) {
+            NotificationManager.warning("⚠️ Debes ingresar un término de búsqueda");
+            return CompletableFuture.completedFuture(List.of());
+        }
 
-                    resultados.add(nuevo);
+        return browseProductsInternal(token, palabra, limite, filtro)
+                .exceptionally(ex -> {
+                    ErrorHandler.handleSearchError(causa(ex));
+                    return List.of();
+                });
+    }
 
-                } catch (Exception e) {
-                    ErrorHandler.logWarning("Error procesando item: " + e.getMessage());
-                    // Continuar con el siguiente item
-                }
-            }
-        } else {
-            System.out.println("⚠️ No se encontraron productos para: " + palabra);
+    /**
+     * 📄 Pide una sola página de productos (offset/limit) de forma asíncrona.
+     * La respuesta se decodifica en streaming directo a {@link Producto}.
+     * Ante un error notifica al usuario y completa con una página vacía.
+     */
+    public static CompletableFuture<SearchPage<Producto>> browsePageAsync(
+            String token,
+            String palabra,
+            int offset,
+            int limite,
+            SearchFilter filtro
+    ) {
+        if (token == null || token.isEmpty() || palabra == null || palabra.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(SearchPage.empty(offset, limite));
         }
 
-        return resultados;
+        HttpRequest request = buildSearchRequest(token, palabra, offset, limite, filtro);
+
+        return reintentarAsync(
+                        () -> enviarStreamAsync(request, response -> decodeProductPage(response, palabra, offset, limite)),
+                        "buscar productos en eBay")
+                .exceptionally(ex -> {
+                    ErrorHandler.handleSearchError(causa(ex));
+                    return SearchPage.empty(offset, limite);
+                });
     }
 
     /**
-     * 📦 Obtiene información adicional del producto
+     * 🔍 Busca productos y los devuelve ya armados como {@link Producto}.
      */
-    public static JsonArray aditional_info_pro(String token, String itemId) {
+    public static List<Producto> browseProductos(String token, String palabra, int limite, SearchFilter filtro) {
         try {
             if (token == null || token.isEmpty()) {
-                NotificationManager.error("🔑 Token no válido");
-                return new JsonArray();
+                NotificationManager.error("🔑 Token de autenticación no válido");
+                return new ArrayList<>();
             }
 
-            if (itemId == null || itemId.isEmpty()) {
-                NotificationManager.warning("⚠️ ID de producto no válido");
-                return new JsonArray();
+            if (palabra == null || palabra.trim().isEmpty()) {
+                NotificationManager.warning("⚠️ Debes ingresar un término de búsqueda");
+                return new ArrayList<>();
             }
 
-            return ErrorHandler.retryOperation(() -> {
-                return getAdditionalInfoInternal(token, itemId);
-            }, 2, "obtener información adicional del producto");
+            HttpRequest request = buildSearchRequest(token, palabra, 0, limite, filtro);
+
+            return esperar(reintentarAsync(
+                    () -> enviarStreamAsync(request, response -> decodeProductPage(response, palabra, 0, limite)),
+                    "buscar productos en eBay"))
+                    .getItems();
 
         } catch (Exception e) {
-            ErrorHandler.handleApiError(e, "cargar detalles del producto");
-            return new JsonArray();
+            ErrorHandler.handleSearchError(e);
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Implementación interna de información adicional
+     * 🌊 Búsqueda perezosa: recorre todos los resultados pidiendo la siguiente
+     * página sólo cuando el consumidor la necesita (con una página de prefetch).
+     *
+     * @param pageSize cantidad de resultados por petición (máx. 200 en la Browse API)
      */
-    private static JsonArray getAdditionalInfoInternal(String token, String itemId) throws Exception {
-        JsonArray resultados = new JsonArray();
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL_PRO + itemId))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
-                .GET()
-                .build();
-
-        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new IOException("Error HTTP " + response.statusCode() + ": " + response.body());
+    public static Stream<Producto> searchStream(
+            String token,
+            String palabra,
+            int pageSize,
+            SearchFilter filtro
+    ) {
+        if (token == null || token.isEmpty()) {
+            NotificationManager.error("🔑 Token de autenticación no válido");
+            return Stream.empty();
         }
 
-        JsonObject item = gson.fromJson(response.body(), JsonObject.class);
-        JsonObject nuevo = new JsonObject();
+        if (palabra == null || palabra.trim().isEmpty()) {
+            NotificationManager.warning("⚠️ Debes ingresar un término de búsqueda");
+            return Stream.empty();
+        }
 
-        try {
+        SearchPageSpliterator<Producto> paginas = new SearchPageSpliterator<>(
+                (offset, limite) -> browsePageAsync(token, palabra, offset, limite, filtro),
+                Math.min(pageSize, MAX_PAGE_SIZE));
 
-            // ==========================
-            // 📝 DESCRIPCIÓN
-            // ==========================
-            nuevo.addProperty("shortDescription",
-                    item.has("shortDescription") && !item.get("shortDescription").isJsonNull()
-                            ? item.get("shortDescription").getAsString()
-                            : "Sin descripción disponible");
+        return StreamSupport.stream(paginas, false);
+    }
 
+    // ═══════════════════════════════════════════════════════
+    // 🌍 BÚSQUEDA EN VARIOS MARKETPLACES
+    // ═══════════════════════════════════════════════════════
 
+    /**
+     * 🌍 Busca en varios marketplaces a la vez y recorre los resultados combinados bajo demanda:
+     * cada marketplace se pagina por su cuenta (con prefetch) y sólo se piden más páginas a
+     * medida que se consumen. Sin repetidos por itemId y con el precio convertido a la moneda
+     * del filtro ({@link SearchFilter#getCurrency()}, USD por defecto) en
+     * {@link Producto#getPrecioNormalizado()}; el precio original no se toca.
+     *
+     * Se respeta el orden pedido: ordenando por precio se mezclan por precio normalizado;
+     * con cualquier otro orden (mejor coincidencia, más recientes) se intercalan por posición.
+     *
+     * Cada página tiene su propio timeout: un marketplace que no responde a tiempo deja de
+     * consultarse y el resto de los resultados se entrega igual.
+     */
+    public static Stream<Producto> searchMarketplacesStream(
+            String token,
+            String palabra,
+            int pageSize,
+            SearchFilter filtro,
+            Collection<EbayMarketplace> mercados,
+            Duration timeoutPorMercado
+    ) {
+        if (token == null || token.isEmpty() || palabra == null || palabra.trim().isEmpty() || mercados.isEmpty()) {
+            return Stream.empty();
+        }
 
-            // ==========================
-            // 📦 OPCIONES DE ENVÍO (shippingOptions)
-            // ==========================
-            if (item.has("shippingOptions") && item.get("shippingOptions").isJsonArray()) {
+        SearchFilter base = filtro != null ? filtro : SearchFilter.none();
+        String moneda = base.getCurrency() != null ? base.getCurrency() : "USD";
+        int limite = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        List<Iterator<Producto>> recorridos = new ArrayList<>();
+        for (EbayMarketplace mercado : new LinkedHashSet<>(mercados)) {
+            SearchFilter local = filtroLocal(base, mercado);
+            SearchPageSpliterator<Producto> paginas = new SearchPageSpliterator<Producto>(
+                    (offset, cantidad) -> paginaDeMercado(token, palabra, offset, cantidad, local, mercado, timeoutPorMercado),
+                    limite).iniciar();
+
+            recorridos.add(StreamSupport.stream(paginas, false)
+                    .peek(producto -> normalizarPrecio(producto, moneda))
+                    .filter(producto -> dentroDelRango(producto.getPrecioNormalizado(), base))
+                    .iterator());
+        }
 
-                JsonArray shippingArray = new JsonArray();
+        Comparator<Producto> orden = switch (base.getSort() != null ? base.getSort() : SearchFilter.Sort.BEST_MATCH) {
+            // Los productos sin precio comparable quedan al final en ambos sentidos
+            case PRICE_ASC -> Comparator.comparing(Producto::getPrecioNormalizado,
+                    Comparator.nullsLast(Comparator.<Double>naturalOrder()));
+            case PRICE_DESC -> Comparator.comparing(Producto::getPrecioNormalizado,
+                    Comparator.nullsLast(Comparator.<Double>reverseOrder()));
+            default -> null;
+        };
 
-                for (JsonElement shipElem : item.getAsJsonArray("shippingOptions")) {
-                    JsonObject ship = shipElem.getAsJsonObject();
-                    JsonObject envio = new JsonObject();
+        return StreamSupport.stream(new MergedSearchSpliterator<>(recorridos, orden, Producto::getItemId), false);
+    }
 
-                    // Tipo de envío
-                    envio.addProperty("type",
-                            ship.has("type") ? ship.get("type").getAsString() : "N/A");
+    private static CompletableFuture<SearchPage<Producto>> paginaDeMercado(
+            String token, String palabra, int offset, int limite,
+            SearchFilter filtro, EbayMarketplace mercado, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(
+                        buildSearchRequest(token, palabra, offset, limite, filtro, mercado),
+                        (nombre, valor) -> true)
+                .timeout(timeout)
+                .build();
 
-                    // Transportista
-                    envio.addProperty("shippingCarrierCode",
-                            ship.has("shippingCarrierCode") ? ship.get("shippingCarrierCode").getAsString() : "N/A");
+        return enviarStreamAsync(request, response -> decodeProductPage(response, palabra, offset, limite))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    System.out.println("⏱️ " + mercado.getMarketplaceId() + " omitido: " + causa(ex).getMessage());
+                    return SearchPage.empty(offset, limite);
+                });
+    }
 
-                    // Costo principal
-                    if (ship.has("shippingCost") && ship.get("shippingCost").isJsonObject()) {
-                        JsonObject cost = ship.getAsJsonObject("shippingCost");
-                        JsonObject costoEnvio = new JsonObject();
-                        costoEnvio.addProperty("value", cost.has("value") ? cost.get("value").getAsString() : "0.00");
-                        costoEnvio.addProperty("currency", cost.has("currency") ? cost.get("currency").getAsString() : "USD");
-                        envio.add("shippingCost", costoEnvio);
-                    }
+    /**
+     * Traduce el rango de precios del filtro a la moneda local del marketplace.
+     */
+    private static SearchFilter filtroLocal(SearchFilter filtro, EbayMarketplace mercado) {
+        String desde = filtro.getCurrency() != null ? filtro.getCurrency() : "USD";
+        SearchFilter local = filtro.withCurrency(mercado.getCurrency());
 
-                    // Cantidad usada para estimación
-                    envio.addProperty("quantityUsedForEstimate",
-                            ship.has("quantityUsedForEstimate") ? ship.get("quantityUsedForEstimate").getAsInt() : 0);
-
-                    // Fechas estimadas
-                    envio.addProperty("minEstimatedDeliveryDate",
-                            ship.has("minEstimatedDeliveryDate") ? ship.get("minEstimatedDeliveryDate").getAsString() : "N/A");
-                    envio.addProperty("maxEstimatedDeliveryDate",
-                            ship.has("maxEstimatedDeliveryDate") ? ship.get("maxEstimatedDeliveryDate").getAsString() : "N/A");
-
-                    // Costo adicional por unidad
-                    if (ship.has("additionalShippingCostPerUnit") && ship.get("additionalShippingCostPerUnit").isJsonObject()) {
-                        JsonObject addCost = ship.getAsJsonObject("additionalShippingCostPerUnit");
-                        JsonObject costoAdicional = new JsonObject();
-                        costoAdicional.addProperty("value", addCost.has("value") ? addCost.get("value").getAsString() : "0.00");
-                        costoAdicional.addProperty("currency", addCost.has("currency") ? addCost.get("currency").getAsString() : "USD");
-                        envio.add("additionalShippingCostPerUnit", costoAdicional);
-                    }
+        if (filtro.getMinPrice() != null) {
+            local = local.withMinPrice(CurrencyRates.convert(filtro.getMinPrice(), desde, mercado.getCurrency()));
+        }
+        if (filtro.getMaxPrice() != null) {
+            local = local.withMaxPrice(CurrencyRates.convert(filtro.getMaxPrice(), desde, mercado.getCurrency()));
+        }
+        return local;
+    }
 
-                    // Tipo de costo
-                    envio.addProperty("shippingCostType",
-                            ship.has("shippingCostType") ? ship.get("shippingCostType").getAsString() : "N/A");
+    /**
+     * Guarda en el producto su precio convertido a la moneda indicada, o null si no tiene
+     * precio o su moneda no se pudo convertir. El precio original no se modifica.
+     */
+    private static void normalizarPrecio(Producto producto, String moneda) {
+        PriceHistory precio = producto.getPriceHistory();
+        Double convertido = null;
+        if (precio != null && precio.getPrice() != null) {
+            convertido = moneda.equalsIgnoreCase(precio.getCurrency())
+                    ? precio.getPrice()
+                    : CurrencyRates.convert(precio.getPrice(), precio.getCurrency(), moneda);
+        }
+        producto.setPrecioNormalizado(convertido != null ? Math.round(convertido * 100.0) / 100.0 : null, moneda);
+    }
 
-                    shippingArray.add(envio);
-                }
+    private static boolean dentroDelRango(Double precio, SearchFilter filtro) {
+        if (precio == null) {
+            return filtro.getMinPrice() == null && filtro.getMaxPrice() == null;
+        }
+        return (filtro.getMinPrice() == null || precio >= filtro.getMinPrice())
+                && (filtro.getMaxPrice() == null || precio <= filtro.getMaxPrice());
+    }
 
-                nuevo.add("shippingOptions", shippingArray);
+    private static SearchPage<Producto> decodeProductPage(
+            HttpResponse<InputStream> response, String palabra, int offset, int limite) throws IOException {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                String detalle = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                throw new IOException("Error HTTP " + response.statusCode() + ": " + detalle);
             }
 
-
-
-            // ==========================
-            // 🔄 POLÍTICA DE DEVOLUCIONES
-            // ==========================
-            if (item.has("returnTerms") && item.get("returnTerms").isJsonObject()) {
-                JsonObject returnTerms = item.getAsJsonObject("returnTerms");
-                boolean returnsAccepted = returnTerms.has("returnsAccepted")
-                        && returnTerms.get("returnsAccepted").getAsBoolean();
-
-                nuevo.addProperty("returnsAccepted", returnsAccepted);
+            SearchPage<Producto> pagina = ItemSummaryDecoder.decodePage(body, offset, limite);
+            if (pagina.getItems().isEmpty()) {
+                System.out.println("⚠️ No se encontraron productos para: " + palabra);
             } else {
-                nuevo.addProperty("returnsAccepted", false);
+                System.out.println("✅ Encontrados " + pagina.getItems().size() + " resultados para: " + palabra);
             }
+            return pagina;
+        }
+    }
 
+    /**
+     * Implementación interna de búsqueda de productos (con reintentos asíncronos)
+     */
+    private static CompletableFuture<List<ItemSummary>> browseProductsInternal(
+            String token,
+            String palabra,
+            int limite,
+            SearchFilter filtro
+    ) {
+        HttpRequest request = buildSearchRequest(token, palabra, 0, limite, filtro);
+        return reintentarAsync(
+                () -> enviarStreamAsync(request, response -> decodeSummaries(response, palabra)),
+                "buscar productos en eBay");
+    }
 
+    private static HttpRequest buildSearchRequest(
+            String token, String palabra, int offset, int limite, SearchFilter filtro) {
+        return buildSearchRequest(token, palabra, offset, limite, filtro, EbayMarketplace.US);
+    }
 
-            // ==========================
-            // 🎟 CUPÓNES DISPONIBLES
-            // ==========================
-            if (item.has("availableCoupons") && item.get("availableCoupons").isJsonArray()) {
-                JsonArray couponsArray = new JsonArray();
-
-                for (JsonElement couponElem : item.getAsJsonArray("availableCoupons")) {
-                    if (!couponElem.isJsonObject()) continue;
-
-                    JsonObject coupon = couponElem.getAsJsonObject();
-                    JsonObject nuevoCoupon = new JsonObject();
-
-                    // Código
-                    if (coupon.has("redemptionCode"))
-                        nuevoCoupon.addProperty("redemptionCode", coupon.get("redemptionCode").getAsString());
-
-                    // Monto de descuento
-                    if (coupon.has("discountAmount") && coupon.get("discountAmount").isJsonObject()) {
-                        JsonObject discount = coupon.getAsJsonObject("discountAmount");
-                        nuevoCoupon.addProperty("discountAmount",
-                                discount.has("value") ? discount.get("value").getAsString() : "0.00");
-                    }
-
-                    // Fecha expiración
-                    if (coupon.has("constraint") && coupon.get("constraint").isJsonObject()) {
-                        JsonObject constraint = coupon.getAsJsonObject("constraint");
-                        if (constraint.has("expirationDate"))
-                            nuevoCoupon.addProperty("expirationDate", constraint.get("expirationDate").getAsString());
-                    }
+    private static HttpRequest buildSearchRequest(
+            String token, String palabra, int offset, int limite, SearchFilter filtro, EbayMarketplace mercado) {
+        String query = URLEncoder.encode(palabra, StandardCharsets.UTF_8);
+        String url = BASE_URL + "?q=" + query + "&limit=" + limite + "&offset=" + offset
+                + (filtro != null ? filtro.toQueryString() : "");
 
-                    couponsArray.add(nuevoCoupon);
-                }
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .header("X-EBAY-C-MARKETPLACE-ID", mercado.getMarketplaceId())
+                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .GET()
+                .build();
+    }
 
-                nuevo.add("availableCoupons", couponsArray);
+    /**
+     * Decodifica la respuesta de búsqueda en streaming a {@link ItemSummary}.
+     */
+    private static List<ItemSummary> decodeSummaries(HttpResponse<InputStream> response, String palabra) throws IOException {
+        List<ItemSummary> items = decodeSummaryPage(response, 0, 0).getItems();
+        if (palabra != null) {
+            if (items.isEmpty()) {
+                System.out.println("⚠️ No se encontraron productos para: " + palabra);
+            } else {
+                System.out.println("✅ Encontrados " + items.size() + " resultados para: " + palabra);
             }
+        }
+        return items;
+    }
 
-
-
-            // ==========================
-            // 📦 DISPONIBILIDAD ESTIMADA
-            // ==========================
-            if (item.has("estimatedAvailabilities")) {
-
-                JsonArray availArray = item.getAsJsonArray("estimatedAvailabilities");
-
-                if (!availArray.isEmpty()) {
-                    JsonObject first = availArray.get(0).getAsJsonObject();
-
-                    if (first.has("estimatedAvailabilityStatus")) {
-                        nuevo.addProperty("status", first.get("estimatedAvailabilityStatus").getAsString());
-                    }
-                }
+    /**
+     * 📦 Obtiene información adicional del producto
+     *
+     * @return el detalle, o null si no se pudo obtener
+     */
+    public static ItemDetail aditional_info_pro(String token, String itemId) {
+        try {
+            if (token == null || token.isEmpty()) {
+                NotificationManager.error("🔑 Token no válido");
+                return null;
             }
 
-
-
-            // ==========================
-            // 🔧 ATRIBUTOS DEL PRODUCTO (localizedAspects)
-            // ==========================
-            if (item.has("localizedAspects") && item.get("localizedAspects").isJsonArray()) {
-
-                JsonArray aspectosLimpios = new JsonArray();
-
-                for (JsonElement aspectElem : item.getAsJsonArray("localizedAspects")) {
-                    if (!aspectElem.isJsonObject()) continue;
-
-                    JsonObject aspect = aspectElem.getAsJsonObject();
-                    JsonObject atributo = new JsonObject();
-
-                    // name
-                    if (aspect.has("name"))
-                        atributo.addProperty("name", aspect.get("name").getAsString());
-
-                    // value
-                    if (aspect.has("value")) {
-                        JsonElement valor = aspect.get("value");
-                        atributo.addProperty("value",
-                                valor.isJsonPrimitive() ? valor.getAsString() : valor.toString());
-                    }
-
-                    if (atributo.has("name"))
-                        aspectosLimpios.add(atributo);
-                }
-
-                nuevo.add("localizedAspects", aspectosLimpios);
-
-            } else {
-                JsonArray vacio = new JsonArray();
-                vacio.add("Sin atributos disponibles");
-                nuevo.add("localizedAspects", vacio);
+            if (itemId == null || itemId.isEmpty()) {
+                NotificationManager.warning("⚠️ ID de producto no válido");
+                return null;
             }
 
+            return esperar(getAdditionalInfoInternal(token, itemId));
 
+        } catch (Exception e) {
+            ErrorHandler.handleApiError(e, "cargar detalles del producto");
+            return null;
+        }
+    }
 
-            // ==========================
-            // 📌 AGREGAR RESULTADO FINAL
-            // ==========================
-            resultados.add(nuevo);
+    /**
+     * 📦 Versión asíncrona de {@link #aditional_info_pro}.
+     */
+    public static CompletableFuture<ItemDetail> additionalInfoAsync(String token, String itemId) {
+        if (token == null || token.isEmpty()) {
+            NotificationManager.error("🔑 Token no válido");
+            return CompletableFuture.completedFuture(null);
+        }
 
-        } catch (Exception e) {
-            ErrorHandler.logWarning("Error procesando detalles del producto: " + e.getMessage());
+        if (itemId == null || itemId.isEmpty()) {
+            NotificationManager.warning("⚠️ ID de producto no válido");
+            return CompletableFuture.completedFuture(null);
         }
 
-        return resultados;
+        return getAdditionalInfoInternal(token, itemId)
+                .exceptionally(ex -> {
+                    ErrorHandler.handleApiError(causa(ex), "cargar detalles del producto");
+                    return null;
+                });
+    }
+
+    /**
+     * Implementación interna de información adicional (con reintentos asíncronos)
+     */
+    private static CompletableFuture<ItemDetail> getAdditionalInfoInternal(String token, String itemId) {
+        HttpRequest request = buildItemRequest(token, itemId);
+        return reintentarAsync(
+                () -> enviarStreamAsync(request, response -> ItemDetailMapper.toItemDetail(leerJson(response))),
+                "obtener información adicional del producto");
+    }
+
+    private static HttpRequest buildItemRequest(String token, String itemId) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL_PRO + itemId))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .GET()
+                .build();
     }
 
     /**
      * 🏷️ Busca productos por vendedor con manejo de errores
      */
-    public JsonArray buscarProductosPorVendedor(String token, String sellerUsername, int limit) {
+    public List<ItemSummary> buscarProductosPorVendedor(String token, String sellerUsername, int limit) {
         try {
             if (token == null || sellerUsername == null || sellerUsername.isEmpty()) {
                 NotificationManager.warning("⚠️ Datos de búsqueda inválidos");
-                return new JsonArray();
+                return List.of();
             }
 
-            return ErrorHandler.retryOperation(() -> {
-                return searchBySellerInternal(token, sellerUsername, limit);
-            }, 2, "buscar productos del vendedor");
+            return searchBySellerInternal(token, sellerUsername, limit);
 
         } catch (Exception e) {
             ErrorHandler.handleApiError(e, "buscar productos del vendedor");
-            return new JsonArray();
+            return List.of();
         }
     }
 
-    private JsonArray searchBySellerInternal(String token, String sellerUsername, int limit) throws Exception {
-        JsonArray resultados = new JsonArray();
+    /**
+     * 🏷️ Versión asíncrona de {@link #buscarProductosPorVendedor}.
+     */
+    public static CompletableFuture<List<ItemSummary>> sellerItemsAsync(String token, String sellerUsername, int limit) {
+        if (token == null || sellerUsername == null || sellerUsername.isEmpty()) {
+            NotificationManager.warning("⚠️ Datos de búsqueda inválidos");
+            return CompletableFuture.completedFuture(List.of());
+        }
 
-        String endpoint = "https://api.ebay.com/buy/browse/v1/item_summary/search";
-        String url = endpoint + "?q=" + URLEncoder.encode(sellerUsername, StandardCharsets.UTF_8)
+        return sellerItemsShared(token, sellerUsername, limit)
+                .exceptionally(ex -> {
+                    ErrorHandler.handleApiError(causa(ex), "buscar productos del vendedor");
+                    return List.of();
+                });
+    }
+
+    private List<ItemSummary> searchBySellerInternal(String token, String sellerUsername, int limit) throws Exception {
+        return esperar(sellerItemsShared(token, sellerUsername, limit));
+    }
+
+    /**
+     * Lanza la búsqueda del vendedor o se une a la misma que ya esté en curso.
+     */
+    private static CompletableFuture<List<ItemSummary>> sellerItemsShared(String token, String sellerUsername, int limit) {
+        String clave = "seller:" + SingleFlight.normalizar(sellerUsername) + ":" + limit;
+        HttpRequest request = buildSellerRequest(token, sellerUsername, null, 0, limit);
+        return VENDEDOR_EN_VUELO.ejecutar(clave, () -> reintentarAsync(
+                        () -> enviarStreamAsync(request, response -> decodeSummaries(response, null)),
+                        "buscar productos del vendedor"));
+    }
+
+    /**
+     * 🏷️ Publicación más antigua del vendedor dentro de una categoría (ver {@link OldestListing}:
+     * no es la fecha de alta de la cuenta).
+     *
+     * Los resultados del vendedor vienen ordenados del más nuevo al más viejo
+     * ({@code sort=newlyListed}; la Browse API no ofrece el orden inverso). Se pide una
+     * página de un solo item para conocer el total y luego sólo el último; si el vendedor
+     * tiene una única publicación basta la primera petición. Con más de 10 000 publicaciones
+     * el resultado queda {@link OldestListing#acotado() acotado}.
+     *
+     * @param categoryId categoría donde buscar (la del producto analizado); obligatoria:
+     *                   sin ella la Browse API casi nunca devuelve las publicaciones del vendedor
+     * @return la publicación (item null si no tiene ninguna en la categoría); falla si falla
+     *         la consulta (429, timeout, circuito abierto), para no confundirlo con "sin publicaciones"
+     */
+    public static CompletableFuture<OldestListing> oldestSellerItemAsync(String token, String sellerUsername, String categoryId) {
+        if (categoryId == null || categoryId.isBlank()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Se necesita la categoría para buscar las publicaciones del vendedor"));
+        }
+        if (token == null || sellerUsername == null || sellerUsername.isBlank()) {
+            return CompletableFuture.completedFuture(new OldestListing(null, 0));
+        }
+
+        String clave = "seller-oldest:" + SingleFlight.normalizar(sellerUsername) + ":" + categoryId.trim();
+        return ANTIGUEDAD_EN_VUELO.ejecutar(clave, () ->
+                        sellerPageAsync(token, sellerUsername, categoryId, 0)
+                                .thenCompose(primera -> {
+                                    int total = primera.getTotal();
+                                    if (total <= 1) {
+                                        return CompletableFuture.completedFuture(
+                                                new OldestListing(primerItem(primera), total));
+                                    }
+                                    // La API no deja pasar de 10 000 resultados
+                                    int ultimo = Math.min(total, SearchPageSpliterator.MAX_RESULTADOS) - 1;
+                                    return sellerPageAsync(token, sellerUsername, categoryId, ultimo)
+                                            .thenApply(pagina -> new OldestListing(primerItem(pagina), total));
+                                }));
+    }
+
+    private static CompletableFuture<SearchPage<ItemSummary>> sellerPageAsync(
+            String token, String sellerUsername, String categoryId, int offset) {
+        HttpRequest request = buildSellerRequest(token, sellerUsername, categoryId, offset, 1);
+        return reintentarAsync(
+                () -> enviarStreamAsync(request, response -> decodeSummaryPage(response, offset, 1)),
+                "buscar publicaciones del vendedor");
+    }
+
+    private static ItemSummary primerItem(SearchPage<ItemSummary> pagina) {
+        return pagina.getItems().isEmpty() ? null : pagina.getItems().get(0);
+    }
+
+    /**
+     * Publicaciones del vendedor ({@code filter=sellers:{...}}), de la más nueva a la más vieja.
+     * La Browse API exige {@code q} o {@code category_ids}: con categoría se busca dentro de ella;
+     * sin categoría se usa el username como {@code q} (sólo trae lo que lo mencione).
+     *
+     * Se fija {@code fieldgroups=MATCHING_ITEMS}: es el grupo más chico de la Browse API
+     * (no hay uno con sólo la fecha) y deja afuera los refinamientos y los campos extendidos;
+     * lo que más achica la respuesta de la búsqueda de la más antigua es {@code limit=1}.
+     *
+     * @param categoryId null para listar sin categoría
+     */
+    private static HttpRequest buildSellerRequest(String token, String sellerUsername, String categoryId, int offset, int limit) {
+        String criterio = categoryId != null && !categoryId.isBlank()
+                ? "category_ids=" + URLEncoder.encode(categoryId.trim(), StandardCharsets.UTF_8)
+                : "q=" + URLEncoder.encode(sellerUsername, StandardCharsets.UTF_8);
+
+        String url = BASE_URL + "?" + criterio
+                + "&filter=" + URLEncoder.encode("sellers:{" + sellerUsername + "}", StandardCharsets.UTF_8)
+                + "&sort=newlyListed"
+                + "&fieldgroups=MATCHING_ITEMS"
+                + "&offset=" + offset
                 + "&limit=" + limit;
 
-        HttpRequest request = HttpRequest.newBuilder()
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Authorization", "Bearer " + token)
                 .header("Accept", "application/json")
@@ -550,19 +1000,17 @@ public class conect_API_eBay {
                 .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
                 .GET()
                 .build();
+    }
 
-        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JsonObject json = gson.fromJson(response.body(), JsonObject.class);
-            if (json.has("itemSummaries")) {
-                resultados = json.getAsJsonArray("itemSummaries");
+    private static SearchPage<ItemSummary> decodeSummaryPage(
+            HttpResponse<InputStream> response, int offset, int limite) throws IOException {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                String detalle = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                throw new IOException("Error HTTP " + response.statusCode() + ": " + detalle);
             }
-        } else {
-            throw new IOException("Error HTTP " + response.statusCode());
+            return ItemSummaryDecoder.decodeSummaryPage(body, offset, limite);
         }
-
-        return resultados;
     }
 
     /**
@@ -572,27 +1020,7 @@ public class conect_API_eBay {
         java.util.List<Double> precios = new java.util.ArrayList<>();
 
         try {
-            JsonArray items = browseProducts(token, query, 50,null,null,null,null);
-
-            for (JsonElement elem : items) {
-                try {
-                    JsonObject obj = elem.getAsJsonObject();
-                    if (obj.has("price")) {
-                        String priceStr = obj.get("price").getAsString();
-                        double price = Double.parseDouble(priceStr);
-                        if (price > 0) {
-                            precios.add(price);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Ignorar items con precio inválido
-                    ErrorHandler.logWarning("Precio inválido en item: " + e.getMessage());
-                }
-            }
-
-            if (precios.isEmpty()) {
-                NotificationManager.info("ℹ️ No se encontraron precios válidos para análisis");
-            }
+            precios = esperar(obtenerPreciosDelMercadoAsync(query, token));
 
         } catch (Exception e) {
             ErrorHandler.handleApiError(e, "obtener precios del mercado");
@@ -601,95 +1029,157 @@ public class conect_API_eBay {
         return precios;
     }
 
-    public Double obtenerPrecioActual(String itemId, String token) {
-
-        try {
-            // Endpoint oficial de eBay Browse API
-            String url = "https://api.ebay.com/buy/browse/v1/item/" + itemId;
-
-            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
-            con.setRequestMethod("GET");
-            con.setRequestProperty("Authorization", "Bearer " + token);
-            con.setRequestProperty("Content-Type", "application/json");
+    /**
+     * 💰 Versión asíncrona de {@link #obtenerPreciosDelMercado}.
+     * Si ya hay una consulta igual en curso, se espera esa en lugar de lanzar otra.
+     */
+    public static CompletableFuture<List<Double>> obtenerPreciosDelMercadoAsync(String query, String token) {
+        String clave = "market:" + SingleFlight.normalizar(query);
+        return PRECIOS_EN_VUELO.ejecutar(clave, () ->
+                        browseProductsAsync(token, query, 50, SearchFilter.none())
+                                .thenApply(conect_API_eBay::extraerPrecios))
+                .thenApply(ArrayList::new);
+    }
 
-            int status = con.getResponseCode();
+    private static List<Double> extraerPrecios(List<ItemSummary> items) {
+        List<Double> precios = new ArrayList<>(items.size());
 
-            if (status != 200) {
-                System.err.println("❌ Error eBay (" + status + ") al consultar precio del item: " + itemId);
-                return null;
+        for (ItemSummary item : items) {
+            double price = item.priceValue();
+            if (price > 0) {
+                precios.add(price);
             }
+        }
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
+        if (precios.isEmpty()) {
+            NotificationManager.info("ℹ️ No se encontraron precios válidos para análisis");
+        }
 
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
+        return precios;
+    }
 
-            in.close();
-            con.disconnect();
+    /**
+     * 💲 Refresca el precio de muchos items con pocas peticiones: agrupa los ids
+     * de a {@value #MAX_IDS_POR_LOTE} en llamadas a {@code item/?item_ids=} y las lanza en paralelo.
+     *
+     * @return mapa itemId → precio actual; los items que fallan o no tienen precio no aparecen
+     */
+    public static Map<String, Double> refreshPrices(String token, Collection<String> itemIds) {
+        return refreshPricesAsync(token, itemIds).join();
+    }
 
-            // Parse JSON
-            JsonObject json = JsonParser.parseString(response.toString()).getAsJsonObject();
+    /**
+     * 💲 Versión asíncrona de {@link #refreshPrices}.
+     */
+    public static CompletableFuture<Map<String, Double>> refreshPricesAsync(String token, Collection<String> itemIds) {
+        if (token == null || token.isEmpty() || itemIds == null || itemIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
 
-            if (json.has("price") && json.get("price").isJsonObject()) {
-                JsonObject priceObj = json.getAsJsonObject("price");
+        List<String> ids = itemIds.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .distinct()
+                .toList();
+
+        List<CompletableFuture<Map<String, Double>>> lotes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_POR_LOTE) {
+            List<String> lote = ids.subList(i, Math.min(i + MAX_IDS_POR_LOTE, ids.size()));
+
+            lotes.add(enviarStreamAsync(buildGetItemsRequest(token, lote), conect_API_eBay::decodePrices)
+                    .exceptionally(ex -> {
+                        ErrorHandler.logWarning("Error refrescando lote de " + lote.size()
+                                + " precios: " + causa(ex).getMessage());
+                        return Map.of();
+                    }));
+        }
 
-                if (priceObj.has("value")) {
-                    return priceObj.get("value").getAsDouble();
-                }
-            }
+        return CompletableFuture.allOf(lotes.toArray(CompletableFuture<?>[]::new))
+                .thenApply(v -> {
+                    Map<String, Double> precios = new HashMap<>();
+                    for (CompletableFuture<Map<String, Double>> lote : lotes) {
+                        precios.putAll(lote.join());
+                    }
+                    System.out.println("💲 Precios refrescados: " + precios.size() + " de " + ids.size()
+                            + " en " + lotes.size() + " peticiones");
+                    return precios;
+                });
+    }
 
-            System.err.println("⚠️ El producto no contiene campo de precio en la API.");
-            return null;
+    private static HttpRequest buildGetItemsRequest(String token, List<String> itemIds) {
+        String ids = itemIds.stream()
+                .map(conect_API_eBay::codificarItemId)
+                .collect(Collectors.joining(","));
 
-        } catch (Exception e) {
-            System.err.println("⚠️ Error obteniendo precio actual desde API: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+        return HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL_PRO + "?item_ids=" + ids))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .header("X-EBAY-C-MARKETPLACE-ID", "EBAY_US")
+                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .GET()
+                .build();
     }
 
-    public List<JsonObject> buscarProductosSimilares(String query, String token) {
-        List<JsonObject> resultados = new ArrayList<>();
+    /**
+     * Id listo para la URL. Llega crudo ({@code v1|123|0}) o ya codificado ({@code v1%7C123%7C0},
+     * como lo devuelve la búsqueda): sólo se codifica el separador, así un id ya codificado
+     * queda igual en vez de codificarse dos veces ({@code %257C}).
+     */
+    static String codificarItemId(String id) {
+        return id.replace("|", "%7C");
+    }
 
-        try {
-            String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-            String url = "https://api.ebay.com/buy/browse/v1/item_summary/search?q=" + encodedQuery;
-
-            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
-            con.setRequestMethod("GET");
-            con.setRequestProperty("Authorization", "Bearer " + token);
-            con.setRequestProperty("Content-Type", "application/json");
-
-            int status = con.getResponseCode();
-            if (status != 200) {
-                System.err.println("❌ Error al buscar productos similares (" + status + ")");
-                return resultados;
+    private static Map<String, Double> decodePrices(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                String detalle = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                throw new IOException("Error HTTP " + response.statusCode() + ": " + detalle);
             }
+            return ItemSummaryDecoder.decodePrices(body);
+        }
+    }
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
+    /**
+     * 💲 Precio actual de un item (detalle de la Browse API).
+     */
+    public Double obtenerPrecioActual(String itemId, String token) {
+        try {
+            return esperar(enviarStreamAsync(buildItemRequest(token, itemId), response -> {
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                    System.err.println("❌ Error eBay (" + response.statusCode() + ") al consultar precio del item: " + itemId);
+                    return null;
+                }
 
-            JsonObject json = JsonParser.parseString(response.toString()).getAsJsonObject();
+                JsonObject json = leerJson(response);
+                if (json.has("price") && json.get("price").isJsonObject()) {
+                    Price precio = ItemDetailMapper.toPrice(json.getAsJsonObject("price"));
+                    if (precio.isPositive()) {
+                        return precio.value();
+                    }
+                }
 
-            if (!json.has("itemSummaries")) {
-                return resultados;
-            }
+                System.err.println("⚠️ El producto no contiene campo de precio en la API.");
+                return null;
+            }));
 
-            json.getAsJsonArray("itemSummaries").forEach(elem -> resultados.add(elem.getAsJsonObject()));
+        } catch (Exception e) {
+            System.err.println("⚠️ Error obteniendo precio actual desde API: " + e.getMessage());
+            return null;
+        }
+    }
 
+    /**
+     * 🔎 Productos similares (primera página de búsqueda) tal como los devuelve eBay.
+     */
+    public List<ItemSummary> buscarProductosSimilares(String query, String token) {
+        try {
+            HttpRequest request = buildSearchRequest(token, query, 0, 50, SearchFilter.none());
+            return esperar(enviarStreamAsync(request, response -> decodeSummaries(response, null)));
         } catch (Exception e) {
             System.err.println("⚠️ Error buscando productos similares: " + e.getMessage());
+            return List.of();
         }
-
-        return resultados;
     }
 
 
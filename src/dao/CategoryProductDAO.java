@@ -3,49 +3,64 @@ package dao;
 import entities.CategoryProduct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import org.hibernate.jpa.HibernateHints;
+import utils.CacheManager;
+import utils.CacheRegion;
+
+import java.time.Duration;
+import java.util.List;
 
 public class CategoryProductDAO extends genericDAO<CategoryProduct> {
+
+    // Categorías buscadas que no están en la BD
+    private static final CacheRegion<String, CategoryProduct> NO_ENCONTRADAS =
+            CacheManager.<String, CategoryProduct>region("category_missing", Duration.ofSeconds(30), 1);
+
+    static {
+        invalidarAlCrear(CategoryProduct.class, NO_ENCONTRADAS, c -> String.valueOf(c.getIdCategory()));
+    }
+
     public CategoryProductDAO() {
         super(CategoryProduct.class);
     }
     public Integer getIdBycategoryID(String id) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                            "SELECT s.id FROM CategoryProduct s WHERE s.idCategory = :id", Integer.class)
-                    .setParameter("id", id)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return 0; //TODO Cambiar para que muestre una excepcion
-        } finally {
-            em.close();
-        }
+        CategoryProduct categoria = findByCategoryId(id);
+        return categoria != null ? categoria.getId() : 0; //TODO Cambiar para que muestre una excepcion
     }
     public boolean existsByCategoryId(String id) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            Long count = em.createQuery(
-                            "SELECT COUNT(c) FROM CategoryProduct c WHERE c.idCategory = :id", Long.class)
-                    .setParameter("id", id)
-                    .getSingleResult();
-            return count > 0;
-        } finally {
-            em.close();
-        }
+        return findByCategoryId(id) != null;
     }
 
     public CategoryProduct findByCategoryId(String id) {
+        if (NO_ENCONTRADAS.isKnownAbsent(id)) {
+            return null;
+        }
+
         EntityManager em = emf.createEntityManager();
         try {
             return em.createQuery(
                             "SELECT c FROM CategoryProduct c WHERE c.idCategory = :id", CategoryProduct.class)
                     .setParameter("id", id)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
                     .getSingleResult();
         } catch (NoResultException e) {
+            NO_ENCONTRADAS.markAbsent(id);
             return null;
         } finally {
             em.close();
         }
     }
 
+    // 📋 Todas las categorías registradas
+    public List<CategoryProduct> findAll() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT c FROM CategoryProduct c ORDER BY c.id", CategoryProduct.class)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
 }
@@ -3,6 +3,9 @@ package dao;
 import entities.ConditionProduct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
 
 public class ConditionProductDAO extends genericDAO<ConditionProduct> {
 
@@ -12,11 +15,19 @@ public class ConditionProductDAO extends genericDAO<ConditionProduct> {
 
     // ✅ Devuelve la entidad completa, no un Integer
     public ConditionProduct getIdByConditionID(String idCondition) {
+        return findByConditionId(idCondition);
+    }
+
+    public boolean existsByConditionId(String id) {
+        return findByConditionId(id) != null;
+    }
+    public ConditionProduct findByConditionId(String id) {
         EntityManager em = emf.createEntityManager();
         try {
             return em.createQuery(
                             "SELECT c FROM ConditionProduct c WHERE c.idCondition = :id", ConditionProduct.class)
-                    .setParameter("id", idCondition)
+                    .setParameter("id", id)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
                     .getSingleResult();
         } catch (NoResultException e) {
             return null;
@@ -25,27 +36,13 @@ public class ConditionProductDAO extends genericDAO<ConditionProduct> {
         }
     }
 
-    public boolean existsByConditionId(String id) {
+    // 📋 Todas las condiciones registradas
+    public List<ConditionProduct> findAll() {
         EntityManager em = emf.createEntityManager();
         try {
-            Long count = em.createQuery(
-                            "SELECT COUNT(c) FROM ConditionProduct c WHERE c.idCondition = :id", Long.class)
-                    .setParameter("id", id)
-                    .getSingleResult();
-            return count > 0;
-        } finally {
-            em.close();
-        }
-    }
-    public ConditionProduct findByConditionId(String id) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                            "SELECT c FROM ConditionProduct c WHERE c.idCondition = :id", ConditionProduct.class)
-                    .setParameter("id", id)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return null;
+            return em.createQuery("SELECT c FROM ConditionProduct c ORDER BY c.id", ConditionProduct.class)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .getResultList();
         } finally {
             em.close();
         }
@@ -0,0 +1,67 @@
+package dao;
+
+import utils.ErrorHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 📣 Avisos de cambios en entidades dentro de la aplicación.
+ *
+ * {@link genericDAO} publica cada create/update/delete después del commit; las regiones
+ * de caché y los paneles se suscriben por tipo de entidad y descartan sólo lo afectado,
+ * en lugar de esperar a que venza el TTL.
+ *
+ * Los oyentes corren en el hilo que hizo el cambio: deben ser rápidos y, si tocan la
+ * interfaz, pasar por {@code Platform.runLater}.
+ */
+public final class EntityChangeBus {
+
+    public enum Tipo { CREADA, ACTUALIZADA, ELIMINADA }
+
+    /**
+     * Un cambio ya confirmado en la BD.
+     *
+     * @param entidad clase de la entidad
+     * @param id      clave primaria (null si no se pudo obtener)
+     * @param valor   la entidad tal como quedó (separada del EntityManager)
+     */
+    public record Cambio<E>(Class<E> entidad, Object id, E valor, Tipo tipo) {
+    }
+
+    private static final Map<Class<?>, List<Consumer<? super Cambio<?>>>> oyentes = new ConcurrentHashMap<>();
+
+    private EntityChangeBus() {
+    }
+
+    /**
+     * Suscribe {@code oyente} a los cambios de {@code tipo}.
+     *
+     * @return acción que cancela la suscripción (para oyentes con vida más corta que la aplicación)
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> Runnable suscribir(Class<E> tipo, Consumer<? super Cambio<E>> oyente) {
+        Consumer<? super Cambio<?>> registrado = cambio -> oyente.accept((Cambio<E>) cambio);
+        List<Consumer<? super Cambio<?>>> lista = oyentes.computeIfAbsent(tipo, t -> new CopyOnWriteArrayList<>());
+        lista.add(registrado);
+        return () -> lista.remove(registrado);
+    }
+
+    /**
+     * Avisa el cambio a los suscriptores de su tipo. El error de un oyente se registra
+     * y no impide avisar a los demás.
+     */
+    public static <E> void publicar(Cambio<E> cambio) {
+        for (Consumer<? super Cambio<?>> oyente : oyentes.getOrDefault(cambio.entidad(), List.of())) {
+            try {
+                oyente.accept(cambio);
+            } catch (RuntimeException e) {
+                ErrorHandler.logWarning("⚠️ Error avisando cambio de " + cambio.entidad().getSimpleName()
+                        + " (" + cambio.tipo() + "): " + e.getMessage());
+            }
+        }
+    }
+}
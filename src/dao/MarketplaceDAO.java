@@ -3,25 +3,58 @@ package dao;
 import entities.Marketplace;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import org.hibernate.jpa.HibernateHints;
+import utils.CacheManager;
+import utils.CacheRegion;
+
+import java.time.Duration;
+import java.util.List;
 
 public class MarketplaceDAO extends genericDAO<Marketplace> {
 
+    // Nombres de marketplace buscados que no están en la BD
+    private static final CacheRegion<String, Marketplace> NO_ENCONTRADOS =
+            CacheManager.<String, Marketplace>region("marketplace_missing", Duration.ofSeconds(30), 1);
+
+    static {
+        invalidarAlCrear(Marketplace.class, NO_ENCONTRADOS, Marketplace::getNameMarketplace);
+    }
+
     public MarketplaceDAO() {
         super(Marketplace.class);
     }
 
     // 🔍 Buscar Marketplace por nombre
     public Marketplace findByName(String name) {
+        if (NO_ENCONTRADOS.isKnownAbsent(name)) {
+            return null;
+        }
+
         EntityManager em = emf.createEntityManager();
         try {
             return em.createQuery(
                             "SELECT m FROM Marketplace m WHERE m.nameMarketplace = :name", Marketplace.class)
                     .setParameter("name", name)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
                     .getSingleResult();
         } catch (NoResultException e) {
+            NO_ENCONTRADOS.markAbsent(name);
             return null;
         } finally {
             em.close();
         }
     }
+
+    // 📋 Todos los marketplaces registrados
+    public List<Marketplace> findAll() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT m FROM Marketplace m ORDER BY m.id", Marketplace.class)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
 }
+
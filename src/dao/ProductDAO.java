@@ -1,10 +1,15 @@
 package dao;
 
+import entities.CouponPro;
 import entities.ProductAnalysis;
 import entities.Producto;
+import entities.Seller;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import utils.CacheManager;
+import utils.CacheRegion;
+
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -13,6 +18,56 @@ import java.util.List;
  */
 public class ProductDAO extends genericDAO<Producto> {
 
+    // Regiones de caché por itemId. Los cambios hechos por los DAO llegan por
+    // EntityChangeBus, así que el TTL sólo cubre cambios hechos fuera de la aplicación
+    private static final CacheRegion<String, Producto> PRODUCTOS =
+            CacheManager.<String, Producto>region("product", Duration.ofHours(2), 8)
+                    .withNegativeTtl(Duration.ofSeconds(30));
+    private static final CacheRegion<String, Producto> PRODUCTOS_COMPLETOS =
+            CacheManager.region("product_full", Duration.ofHours(2), 16);
+    private static final CacheRegion<String, List<ProductAnalysis>> ANALISIS =
+            CacheManager.region("analysis_list", Duration.ofHours(1), 8);
+
+    static {
+        // Producto creado, modificado o borrado: fuera sus tres entradas (y la marca de inexistente)
+        EntityChangeBus.suscribir(Producto.class, cambio -> invalidarProducto(cambio.valor().getItemId()));
+
+        // Análisis nuevo o actualizado: cambia la lista de su producto
+        EntityChangeBus.suscribir(ProductAnalysis.class, cambio -> {
+            String itemId = itemIdDe(cambio.valor());
+            if (itemId != null) {
+                ANALISIS.invalidate(itemId);
+            } else {
+                ANALISIS.invalidateAll();
+            }
+        });
+
+        // El cupón va dentro del producto completo
+        EntityChangeBus.suscribir(CouponPro.class, cambio -> PRODUCTOS_COMPLETOS.invalidate(cambio.valor().getItemId()));
+
+        // Un vendedor puede aparecer en muchos productos completos y no se indexan por vendedor
+        EntityChangeBus.suscribir(Seller.class, cambio -> {
+            if (cambio.tipo() != EntityChangeBus.Tipo.CREADA) {
+                PRODUCTOS_COMPLETOS.invalidateAll();
+            }
+        });
+    }
+
+    // itemId del producto de un análisis, o null si el producto es un proxy sin cargar
+    private static String itemIdDe(ProductAnalysis analisis) {
+        try {
+            return analisis.getItem() != null ? analisis.getItem().getItemId() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void invalidarProducto(String itemId) {
+        PRODUCTOS.invalidate(itemId);
+        PRODUCTOS_COMPLETOS.invalidate(itemId);
+        ANALISIS.invalidate(itemId);
+    }
+
     public ProductDAO() {
         super(Producto.class);
     }
@@ -21,71 +76,52 @@ public class ProductDAO extends genericDAO<Producto> {
      * Obtiene todos los análisis de mercado registrados para un producto específico.
      */
     public List<ProductAnalysis> obtenerAnalisisPorProducto(String itemId) {
-        // Verificar caché primero
-        String cacheKey = "analysis_list:" + itemId;
-        @SuppressWarnings("unchecked")
-        List<ProductAnalysis> cached = (List<ProductAnalysis>) CacheManager.get(cacheKey, List.class);
-
-        if (cached != null) {
-            System.out.println("♻️ Análisis obtenidos desde caché");
-            return cached;
-        }
-
-        EntityManager em = emf.createEntityManager();
-        try {
-            List<ProductAnalysis> result = em.createQuery(
-                            "SELECT a FROM ProductAnalysis a " +
-                                    "WHERE a.item.itemId = :id " +
-                                    "ORDER BY a.analysisDate DESC", ProductAnalysis.class)
-                    .setParameter("id", itemId)
-                    .getResultList();
-
-            // Guardar en caché
-            CacheManager.put(cacheKey, result);
-
-            return result;
-        } finally {
-            em.close();
-        }
+        return ANALISIS.get(itemId, id -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                return em.createQuery(
+                                "SELECT a FROM ProductAnalysis a " +
+                                        "WHERE a.item.itemId = :id " +
+                                        "ORDER BY a.analysisDate DESC", ProductAnalysis.class)
+                        .setParameter("id", id)
+                        .getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     /**
      * Busca un producto por su itemId (versión simple sin relaciones).
      */
     public Producto findByItemId(String itemId) {
-        // Verificar caché primero
-        String cacheKey = "product:" + itemId;
-        Producto cached = CacheManager.get(cacheKey, Producto.class);
-
-        if (cached != null) {
-            System.out.println("♻️ Producto obtenido desde caché");
-            return cached;
+        try {
+            // Si no existe queda marcado unos segundos y no se vuelve a consultar
+            return PRODUCTOS.get(itemId, this::cargarPorItemId);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("❌ Error en ProductDAO.findByItemId()");
+            return null;
         }
+    }
 
+    private Producto cargarPorItemId(String itemId) {
         EntityManager em = emf.createEntityManager();
-        Producto producto = null;
-
         try {
-            producto = em.createQuery(
+            Producto producto = em.createQuery(
                             "SELECT p FROM Producto p WHERE p.itemId = :itemId", Producto.class)
                     .setParameter("itemId", itemId)
                     .getSingleResult();
 
             System.out.println("✅ Producto encontrado en BD con itemId: " + itemId);
-
-            // Guardar en caché
-            CacheManager.put(cacheKey, producto);
+            return producto;
 
         } catch (NoResultException e) {
             System.out.println("⚠️ No se encontró producto con itemId: " + itemId);
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("❌ Error en ProductDAO.findByItemId()");
+            return null;
         } finally {
             em.close();
         }
-
-        return producto;
     }
 
     /**
@@ -96,15 +132,10 @@ public class ProductDAO extends genericDAO<Producto> {
      * @return Producto con todas sus relaciones inicializadas
      */
     public Producto findByItemIdWithRelations(String itemId) {
-        // Verificar caché primero
-        String cacheKey = "product_full:" + itemId;
-        Producto cached = CacheManager.get(cacheKey, Producto.class);
-
-        if (cached != null) {
-            System.out.println("♻️ Producto completo obtenido desde caché");
-            return cached;
-        }
+        return PRODUCTOS_COMPLETOS.get(itemId, this::cargarConRelaciones);
+    }
 
+    private Producto cargarConRelaciones(String itemId) {
         EntityManager em = emf.createEntityManager();
         try {
             Producto p = em.createQuery(
@@ -120,9 +151,6 @@ public class ProductDAO extends genericDAO<Producto> {
 
             System.out.println("✅ Producto con relaciones cargado: " + itemId);
 
-            // Guardar en caché
-            CacheManager.put(cacheKey, p);
-
             return p;
 
         } catch (NoResultException e) {
@@ -173,16 +201,16 @@ public class ProductDAO extends genericDAO<Producto> {
      * Limpia el caché de un producto específico
      */
     public void clearCache(String itemId) {
-        CacheManager.remove("product:" + itemId);
-        CacheManager.remove("product_full:" + itemId);
-        CacheManager.remove("analysis_list:" + itemId);
+        invalidarProducto(itemId);
     }
 
     /**
      * Limpia todo el caché de productos
      */
     public static void clearAllCache() {
-        CacheManager.clear();
+        PRODUCTOS.invalidateAll();
+        PRODUCTOS_COMPLETOS.invalidateAll();
+        ANALISIS.invalidateAll();
     }
     /**
      * Obtiene un producto con TODAS sus relaciones inicializadas
@@ -0,0 +1,155 @@
+package dao;
+
+import entities.CategoryProduct;
+import entities.ConditionProduct;
+import entities.Marketplace;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import utils.ErrorHandler;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 🗄️ Caché de segundo nivel de Hibernate para las tablas de referencia
+ * (categorías, condiciones y marketplaces): pocas filas que casi nunca cambian
+ * y que se consultan al guardar cada producto.
+ *
+ * Necesita un proveedor JCache en el classpath ({@code hibernate-jcache} más una
+ * implementación, p. ej. Ehcache); sin él, o con {@code -Dprims.db.cache=false},
+ * la aplicación funciona igual pero consultando siempre la BD.
+ */
+final class SecondLevelCache {
+
+    // Entidades marcadas @Cacheable (READ_ONLY): se precargan completas al iniciar
+    private static final List<Class<?>> ENTIDADES_REFERENCIA =
+            List.of(CategoryProduct.class, ConditionProduct.class, Marketplace.class);
+
+    private static volatile boolean activa;
+
+    private SecondLevelCache() {
+    }
+
+    /**
+     * Propiedades para {@code createEntityManagerFactory}: activan la caché de entidades
+     * (sólo las marcadas @Cacheable) y la de consultas, con estadísticas.
+     * Mapa vacío si no hay proveedor o se desactivó.
+     */
+    static Map<String, Object> propiedades() {
+        activa = false;
+        if (!Boolean.parseBoolean(System.getProperty("prims.db.cache", "true"))) {
+            return Map.of();
+        }
+        if (!hayProveedorJCache()) {
+            ErrorHandler.logWarning("⚠️ Sin proveedor JCache en el classpath: caché de segundo nivel desactivada");
+            return Map.of();
+        }
+
+        activa = true;
+        return Map.of(
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.use_query_cache", "true",
+                "hibernate.cache.region.factory_class", "jcache",
+                "hibernate.javax.cache.missing_cache_strategy", "create",
+                "jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE",
+                "hibernate.generate_statistics", "true");
+    }
+
+    static boolean activa() {
+        return activa;
+    }
+
+    private static boolean hayProveedorJCache() {
+        try {
+            Class.forName("org.hibernate.cache.jcache.internal.JCacheRegionFactory");
+            Class.forName("javax.cache.Caching");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔥 PRECARGA
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Carga todas las filas de las tablas de referencia y sus búsquedas por clave
+     * para que las primeras operaciones ya no vayan a la BD.
+     */
+    static void precargar(EntityManagerFactory emf) {
+        if (!activa) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        int filas = 0;
+        try {
+            EntityManager em = emf.createEntityManager();
+            try {
+                for (Class<?> tipo : ENTIDADES_REFERENCIA) {
+                    filas += em.createQuery("SELECT e FROM " + tipo.getSimpleName() + " e", tipo)
+                            .getResultList().size();
+                }
+            } finally {
+                em.close();
+            }
+
+            // Las consultas por clave quedan en la caché de consultas
+            CategoryProductDAO categorias = new CategoryProductDAO();
+            for (CategoryProduct c : categorias.findAll()) {
+                categorias.findByCategoryId(String.valueOf(c.getIdCategory()));
+            }
+            ConditionProductDAO condiciones = new ConditionProductDAO();
+            for (ConditionProduct c : condiciones.findAll()) {
+                condiciones.findByConditionId(String.valueOf(c.getIdCondition()));
+            }
+            MarketplaceDAO marketplaces = new MarketplaceDAO();
+            for (Marketplace m : marketplaces.findAll()) {
+                marketplaces.findByName(m.getNameMarketplace());
+            }
+
+            System.out.println("✅ Caché de segundo nivel precargada: " + filas + " filas en "
+                    + (System.currentTimeMillis() - inicio) + " ms");
+        } catch (Exception e) {
+            ErrorHandler.logWarning("⚠️ No se pudo precargar la caché de segundo nivel: " + e.getMessage());
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 📊 ESTADÍSTICAS
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Aciertos de la caché de segundo nivel por entidad y de la caché de consultas.
+     * Se imprime junto al resumen de {@link utils.CacheManager}.
+     */
+    static void imprimirResumen(EntityManagerFactory emf) {
+        if (!activa || emf == null || !emf.isOpen()) {
+            return;
+        }
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        StringBuilder texto = new StringBuilder("📊 Caché de segundo nivel (Hibernate)")
+                .append(System.lineSeparator());
+        for (Class<?> tipo : ENTIDADES_REFERENCIA) {
+            EntityStatistics e = stats.getEntityStatistics(tipo.getName());
+            texto.append("   ").append(linea(tipo.getSimpleName(), e.getCacheHitCount(), e.getCacheMissCount(),
+                    e.getCachePutCount())).append(System.lineSeparator());
+        }
+        texto.append("   ").append(linea("consultas", stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount(),
+                stats.getQueryCachePutCount())).append(System.lineSeparator());
+        System.out.print(texto);
+    }
+
+    private static String linea(String nombre, long aciertos, long fallos, long guardados) {
+        long consultas = aciertos + fallos;
+        double tasa = consultas == 0 ? 0.0 : aciertos * 100.0 / consultas;
+        return String.format(Locale.ROOT, "%-16s aciertos %6.1f%% (%d/%d) | guardados %d",
+                nombre, tasa, aciertos, consultas, guardados);
+    }
+}
@@ -1,11 +1,39 @@
 package dao;
 
 import entities.Seller;
+import entities.SellerCategoryActivity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import utils.CacheManager;
+import utils.CacheRegion;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class SellerDAO extends genericDAO<Seller> {
 
+    /**
+     * Publicación más antigua de un vendedor en una categoría, pendiente de guardar.
+     *
+     * @param desde fecha ISO ({@code yyyy-MM-dd})
+     */
+    public record ActividadPendiente(String username, int idCategory, String desde, boolean acotado) {
+    }
+
+    // Usernames buscados que no están en la BD (vendedores de resultados nunca guardados)
+    private static final CacheRegion<String, Seller> NO_ENCONTRADOS =
+            CacheManager.<String, Seller>region("seller_missing", Duration.ofSeconds(30), 1);
+
+    static {
+        invalidarAlCrear(Seller.class, NO_ENCONTRADOS, Seller::getUsername);
+    }
+
     public SellerDAO() {
         super(Seller.class);
     }
@@ -44,6 +72,10 @@ public class SellerDAO extends genericDAO<Seller> {
      * @return objeto Seller si existe, o null si no se encuentra
      */
     public Seller findByUsername(String username) {
+        if (NO_ENCONTRADOS.isKnownAbsent(username)) {
+            return null;
+        }
+
         EntityManager em = emf.createEntityManager();
         Seller vendedor = null;
 
@@ -56,6 +88,7 @@ public class SellerDAO extends genericDAO<Seller> {
                     .getSingleResult();
         } catch (NoResultException e) {
             System.out.println("⚠️ No se encontró vendedor con username: " + username);
+            NO_ENCONTRADOS.markAbsent(username);
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("❌ Error en SellerDAO.findByUsername()");
@@ -65,4 +98,130 @@ public class SellerDAO extends genericDAO<Seller> {
 
         return vendedor;
     }
+
+    /**
+     * Pares (username del vendedor, id de categoría de eBay) de los productos guardados en
+     * la wishlist del usuario, en una sola consulta. Los productos sin categoría no aparecen.
+     */
+    public List<Object[]> findCategoriasByWishlistUser(int userId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(
+                            "SELECT DISTINCT s.username, c.idCategory FROM WishlistProduct w " +
+                                    "JOIN w.idItem p JOIN p.idSeller s JOIN p.idCategory c " +
+                                    "WHERE w.idUser.id = :userId",
+                            Object[].class)
+                    .setParameter("userId", userId)
+                    .getResultList();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("❌ Error en SellerDAO.findCategoriasByWishlistUser()");
+            return List.of();
+        } finally {
+            em.close();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🕰️ ACTIVIDAD POR CATEGORÍA
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Publicación más antigua guardada del vendedor en la categoría.
+     *
+     * @return la fila, o null si no hay (o falla la consulta: se vuelve a preguntar a la API)
+     */
+    public SellerCategoryActivity findActividad(String username, int idCategory) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<SellerCategoryActivity> filas = em.createQuery(
+                            "SELECT a FROM SellerCategoryActivity a " +
+                                    "WHERE a.seller.username = :username AND a.idCategory = :idCategory",
+                            SellerCategoryActivity.class)
+                    .setParameter("username", username)
+                    .setParameter("idCategory", idCategory)
+                    .setMaxResults(1)
+                    .getResultList();
+            return filas.isEmpty() ? null : filas.get(0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("❌ Error en SellerDAO.findActividad()");
+            return null;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Guarda (o actualiza) varias actividades en una sola transacción, con dos consultas
+     * para todo el lote. Se omiten los vendedores que no están en la BD (resultados de
+     * búsqueda nunca guardados): su actividad queda sólo en memoria.
+     *
+     * @return cantidad de filas guardadas
+     */
+    public int guardarActividades(List<ActividadPendiente> pendientes) {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> usernames = new HashSet<>();
+        for (ActividadPendiente pendiente : pendientes) {
+            usernames.add(pendiente.username());
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            Map<String, Seller> vendedores = new HashMap<>();
+            for (Seller vendedor : em.createQuery(
+                            "SELECT s FROM Seller s WHERE s.username IN :usernames", Seller.class)
+                    .setParameter("usernames", usernames)
+                    .getResultList()) {
+                vendedores.put(vendedor.getUsername().toLowerCase(Locale.ROOT), vendedor);
+            }
+
+            Map<String, SellerCategoryActivity> existentes = new HashMap<>();
+            for (SellerCategoryActivity fila : em.createQuery(
+                            "SELECT a FROM SellerCategoryActivity a JOIN FETCH a.seller s " +
+                                    "WHERE s.username IN :usernames", SellerCategoryActivity.class)
+                    .setParameter("usernames", usernames)
+                    .getResultList()) {
+                existentes.put(claveActividad(fila.getSeller().getUsername(), fila.getIdCategory()), fila);
+            }
+
+            String hoy = LocalDate.now().toString();
+            int guardadas = 0;
+            em.getTransaction().begin();
+            for (ActividadPendiente pendiente : pendientes) {
+                Seller vendedor = vendedores.get(pendiente.username().toLowerCase(Locale.ROOT));
+                if (vendedor == null) {
+                    continue;
+                }
+                SellerCategoryActivity fila = existentes.get(claveActividad(pendiente.username(), pendiente.idCategory()));
+                if (fila == null) {
+                    em.persist(new SellerCategoryActivity(vendedor, pendiente.idCategory(),
+                            pendiente.desde(), pendiente.acotado(), hoy));
+                } else {
+                    fila.setOldestListing(pendiente.desde());
+                    fila.setBounded(pendiente.acotado());
+                    fila.setCheckedAt(hoy);
+                }
+                guardadas++;
+            }
+            em.getTransaction().commit();
+            return guardadas;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            e.printStackTrace();
+            System.err.println("❌ Error en SellerDAO.guardarActividades()");
+            return 0;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static String claveActividad(String username, int idCategory) {
+        return username.toLowerCase(Locale.ROOT) + "|" + idCategory;
+    }
 }
@@ -4,27 +4,37 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import jakarta.persistence.PersistenceException;
+import utils.CacheManager;
+import utils.CacheRegion;
 import utils.ErrorHandler;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 public class genericDAO<T> implements inter_CRUD<T> {
     protected static EntityManagerFactory emf;
     private Class<T> entityClass;
 
     static {
         try {
-            emf = Persistence.createEntityManagerFactory("default");
+            emf = Persistence.createEntityManagerFactory("default", SecondLevelCache.propiedades());
             System.out.println("EntityManagerFactory inicializado correctamente");
         } catch (Exception e) {
             System.err.println("Error crítico al inicializar EntityManagerFactory");
             ErrorHandler.handleDatabaseError(e, "inicializar conexión a base de datos");
             throw new RuntimeException("No se pudo inicializar la base de datos", e);
         }
+
+        if (SecondLevelCache.activa()) {
+            CompletableFuture.runAsync(() -> SecondLevelCache.precargar(getEmf()));
+            CacheManager.registrarResumen(() -> SecondLevelCache.imprimirResumen(emf));
+        }
     }
 
     public static EntityManagerFactory getEmf() {
         if (emf == null || !emf.isOpen()) {
             try {
-                emf = Persistence.createEntityManagerFactory("default");
+                emf = Persistence.createEntityManagerFactory("default", SecondLevelCache.propiedades());
             } catch (Exception e) {
                 ErrorHandler.handleDatabaseError(e, "reconectar a base de datos");
                 throw new RuntimeException("No se pudo reconectar a la base de datos", e);
@@ -37,6 +47,39 @@ public class genericDAO<T> implements inter_CRUD<T> {
         this.entityClass = entityClass;
     }
 
+    /**
+     * Registra una región que marca claves inexistentes de {@code tipo}; cada {@link #create}
+     * de esa entidad invalida la marca de su clave para que la próxima búsqueda la encuentre.
+     */
+    protected static <E> void invalidarAlCrear(Class<E> tipo, CacheRegion<String, ?> region, Function<E, String> clave) {
+        EntityChangeBus.suscribir(tipo, cambio -> {
+            if (cambio.tipo() == EntityChangeBus.Tipo.CREADA) {
+                String valor = clave.apply(cambio.valor());
+                if (valor != null) {
+                    region.invalidate(valor);
+                }
+            }
+        });
+    }
+
+    /**
+     * Publica en {@link EntityChangeBus} un cambio ya confirmado. Se llama con el
+     * EntityManager todavía abierto para poder leer la clave primaria.
+     */
+    private void avisarCambio(EntityManager em, Object entity, EntityChangeBus.Tipo tipo) {
+        if (!entityClass.isInstance(entity)) {
+            return;
+        }
+
+        Object id = null;
+        try {
+            id = em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+        } catch (RuntimeException e) {
+            ErrorHandler.logWarning("⚠️ No se pudo obtener el ID de " + entityClass.getSimpleName() + ": " + e.getMessage());
+        }
+        EntityChangeBus.publicar(new EntityChangeBus.Cambio<>(entityClass, id, entityClass.cast(entity), tipo));
+    }
+
     @Override
     public void create(Object entity) {
         EntityManager em = null;
@@ -45,6 +88,7 @@ public class genericDAO<T> implements inter_CRUD<T> {
             em.getTransaction().begin();
             em.persist(entity);
             em.getTransaction().commit();
+            avisarCambio(em, entity, EntityChangeBus.Tipo.CREADA);
 
             ErrorHandler.logInfo("✅ Entidad creada: " + entityClass.getSimpleName());
 
@@ -105,6 +149,7 @@ public class genericDAO<T> implements inter_CRUD<T> {
             em.getTransaction().begin();
             em.merge(entity);
             em.getTransaction().commit();
+            avisarCambio(em, entity, EntityChangeBus.Tipo.ACTUALIZADA);
 
             ErrorHandler.logInfo("✅ Entidad actualizada: " + entityClass.getSimpleName());
 
@@ -137,6 +182,7 @@ public class genericDAO<T> implements inter_CRUD<T> {
             em.getTransaction().begin();
 
             // Adjuntar la entidad al contexto si no lo está
+            T eliminada = entity;
             if (!em.contains(entity)) {
                 entity = em.merge(entity);
             }
@@ -144,6 +190,7 @@ public class genericDAO<T> implements inter_CRUD<T> {
             em.remove(entity);
 
             em.getTransaction().commit();
+            avisarCambio(em, eliminada, EntityChangeBus.Tipo.ELIMINADA);
 
             ErrorHandler.logInfo("✅ Entidad eliminada: " + entityClass.getSimpleName());
 
@@ -1,8 +1,12 @@
 package entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Table(name = "condition_products", schema = "PRIMS", uniqueConstraints = {
         @UniqueConstraint(name = "id_condition_UNIQUE", columnNames = {"id_condition"})
 })
@@ -68,6 +68,14 @@ public class Producto {
     @Transient
     private List<ShippingProduct> envios = new ArrayList<>();
 
+    // 🔹 Precio convertido a la moneda de una búsqueda en varios marketplaces
+    // (el original, en su moneda, sigue en priceHistory)
+    @Transient
+    private Double precioNormalizado;
+
+    @Transient
+    private String monedaNormalizada;
+
     // ===== CONSTRUCTOR VACÍO =====
     public Producto() {}
 
@@ -211,5 +219,18 @@ public class Producto {
     public void setEnvios(List<ShippingProduct> envios) {
         this.envios = envios;
     }
+
+    public Double getPrecioNormalizado() {
+        return precioNormalizado;
+    }
+
+    public String getMonedaNormalizada() {
+        return monedaNormalizada;
+    }
+
+    public void setPrecioNormalizado(Double precioNormalizado, String monedaNormalizada) {
+        this.precioNormalizado = precioNormalizado;
+        this.monedaNormalizada = monedaNormalizada;
+    }
 }
 
@@ -0,0 +1,95 @@
+package entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Publicación más antigua de un vendedor dentro de una categoría de eBay (no es la
+ * fecha de alta de la cuenta, por eso no va en {@link Seller#getCreatedAt()}).
+ */
+@Entity
+@Table(name = "seller_category_activity", schema = "PRIMS", indexes = {
+        @Index(name = "fk_seller_activity_idx", columnList = "id_seller")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "seller_category_UNIQUE", columnNames = {"id_seller", "id_category"})
+})
+public class SellerCategoryActivity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "id_seller", nullable = false)
+    private Seller seller;
+
+    @Column(name = "id_category", nullable = false)
+    private Integer idCategory;
+
+    @Column(name = "oldest_listing", nullable = false, length = 45)
+    private String oldestListing;
+
+    @Column(name = "bounded", nullable = false)
+    private Boolean bounded;
+
+    @Column(name = "checked_at", nullable = false, length = 45)
+    private String checkedAt;
+
+    public SellerCategoryActivity() {
+    }
+
+    public SellerCategoryActivity(Seller seller, Integer idCategory, String oldestListing, Boolean bounded, String checkedAt) {
+        this.seller = seller;
+        this.idCategory = idCategory;
+        this.oldestListing = oldestListing;
+        this.bounded = bounded;
+        this.checkedAt = checkedAt;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Seller getSeller() {
+        return seller;
+    }
+
+    public void setSeller(Seller seller) {
+        this.seller = seller;
+    }
+
+    public Integer getIdCategory() {
+        return idCategory;
+    }
+
+    public void setIdCategory(Integer idCategory) {
+        this.idCategory = idCategory;
+    }
+
+    public String getOldestListing() {
+        return oldestListing;
+    }
+
+    public void setOldestListing(String oldestListing) {
+        this.oldestListing = oldestListing;
+    }
+
+    public Boolean getBounded() {
+        return bounded;
+    }
+
+    public void setBounded(Boolean bounded) {
+        this.bounded = bounded;
+    }
+
+    public String getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(String checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+}
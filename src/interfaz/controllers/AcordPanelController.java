@@ -1,15 +1,20 @@
 package interfaz.controllers;
 
+import dao.EntityChangeBus;
 import dao.WishlistDAO;
+import entities.WishlistProduct;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
+import service.ProductAnalysisService;
 import utils.Sesion;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class AcordPanelController {
 
@@ -17,10 +22,48 @@ public class AcordPanelController {
     private VBox acordPanel;
 
     private final WishlistDAO wishlistDAO = new WishlistDAO();
+    private final ProductAnalysisService analysisService = new ProductAnalysisService();
+
+    // Varios cambios seguidos en la wishlist se resuelven con una sola recarga
+    private final AtomicBoolean recargaPendiente = new AtomicBoolean();
+
+    // Cancela la suscripción a la wishlist; null mientras el panel no está en pantalla
+    private Runnable cancelarSuscripcion;
 
     @FXML
     public void initialize() {
         recargarLista();
+        suscribirCambios();
+
+        // Se deja de escuchar al cerrar el panel; si vuelve a mostrarse se recarga
+        // (pudo cambiar mientras tanto) y se vuelve a escuchar
+        acordPanel.sceneProperty().addListener((obs, anterior, escena) -> {
+            if (escena == null) {
+                cancelarSuscripcion();
+            } else if (cancelarSuscripcion == null) {
+                recargarLista();
+                suscribirCambios();
+            }
+        });
+    }
+
+    /** Productos guardados o quitados desde cualquier pantalla */
+    private void suscribirCambios() {
+        cancelarSuscripcion = EntityChangeBus.suscribir(WishlistProduct.class, cambio -> {
+            if (cambio.tipo() != EntityChangeBus.Tipo.ACTUALIZADA && recargaPendiente.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    recargaPendiente.set(false);
+                    recargarLista();
+                });
+            }
+        });
+    }
+
+    private void cancelarSuscripcion() {
+        if (cancelarSuscripcion != null) {
+            cancelarSuscripcion.run();
+            cancelarSuscripcion = null;
+        }
     }
 
     /**
@@ -41,6 +84,10 @@ public class AcordPanelController {
             return;
         }
 
+        // Un solo refresco por lotes para todos los precios (y las antigüedades de los vendedores) antes de analizar cada producto
+        analysisService.precargarPrecios(listaItems);
+        analysisService.precargarVendedores(userId);
+
         for (String itemId : listaItems) {
             loadProductAnalysis(itemId);
         }
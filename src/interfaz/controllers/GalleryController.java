@@ -1,7 +1,9 @@
 package interfaz.controllers;
 
+import api.SearchFilter;
 import entities.Auth;
 import entities.Producto;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
@@ -12,17 +14,19 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import service.ProductAnalysisService;
 import utils.NotificationManager;
-import utils.Sesion;
 import utils.TokenManager;
 import utils.cls_browseEBAY;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class GalleryController {
-    private String token = Sesion.getTokenAPI();
 
     @FXML
     private BorderPane root;
@@ -50,6 +54,13 @@ public class GalleryController {
     private MainController mainController;
 
     private final List<Producto> allProducts = new ArrayList<>();
+    // Resultados aún no descargados de la búsqueda actual (se piden por páginas)
+    private Iterator<Producto> pendingResults = Collections.emptyIterator();
+    private boolean hasMoreResults;
+
+    // Las descargas corren fuera del hilo de JavaFX; cada búsqueda nueva descarta las de la anterior
+    private int currentSearch;
+    private boolean loading;
     private int currentPage = 1;
     private cls_browseEBAY apiLoader = new cls_browseEBAY();
     private static final int COLUMNS = 5;
@@ -80,31 +91,73 @@ public class GalleryController {
     }
     /** 🔹 Carga productos directamente desde la API eBay */
     public void loadProducts(String palabra) {
-        try {
-            System.out.println("🌐 Cargando productos desde la API eBay...");
-
-            List<Producto> productos = apiLoader.obtenerProductos(token, palabra,null,null,null, null);
-
-            if (productos.isEmpty()) {
-                gridPane.getChildren().clear();
-                VBox placeholder = new VBox();
-                Label label = new Label("No se encontraron productos para \"" + palabra + "\"");
-                label.setStyle("-fx-font-size: 18; -fx-text-fill: gray;");
-                placeholder.getChildren().add(label);
-                gridPane.add(placeholder, 0, 0);
-                return;
-            }
+        System.out.println("🌐 Cargando productos desde la API eBay...");
+        startSearch(palabra, SearchFilter.none());
+    }
 
-            allProducts.clear();
-            allProducts.addAll(productos);
-            currentPage = 1;
+    /** Productos descargados en segundo plano y si la búsqueda tiene más */
+    private record Descarga(Iterator<Producto> resultados, List<Producto> productos, boolean hayMas) {
+    }
 
-            renderPage(); // renderiza en cuadrícula
-            updatePaginationButtons();
+    /** 🔹 Abre la búsqueda y trae la primera página sin bloquear la interfaz */
+    private void startSearch(String palabra, SearchFilter filtro) {
+        int busqueda = ++currentSearch;
+        loading = true;
+        allProducts.clear();
+        pendingResults = Collections.emptyIterator();
+        hasMoreResults = false;
+        currentPage = 1;
+        btnNext.setDisable(true);
+
+        CompletableFuture
+                .supplyAsync(() -> fetchMore(
+                                apiLoader.abrirBusqueda(TokenManager.getToken(), palabra, filtro), ITEMS_PER_PAGE),
+                        ProductAnalysisService.getExecutor())
+                .whenComplete((descarga, ex) -> Platform.runLater(() -> {
+                    if (busqueda != currentSearch) {
+                        return;
+                    }
+                    loading = false;
+
+                    if (ex != null) {
+                        ex.printStackTrace();
+                        NotificationManager.error("Error al buscar productos.");
+                        return;
+                    }
+                    addResults(descarga);
+
+                    if (allProducts.isEmpty()) {
+                        gridPane.getChildren().clear();
+                        VBox placeholder = new VBox();
+                        Label label = new Label("No se encontraron productos para \"" + palabra + "\"");
+                        label.setStyle("-fx-font-size: 18; -fx-text-fill: gray;");
+                        placeholder.getChildren().add(label);
+                        gridPane.add(placeholder, 0, 0);
+                        updatePaginationButtons();
+                        return;
+                    }
+
+                    renderPage(); // renderiza en cuadrícula
+                    updatePaginationButtons();
+                }));
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * 🔹 Trae más productos de la búsqueda (la API pagina por offset). Hace llamadas HTTP:
+     * se ejecuta fuera del hilo de JavaFX.
+     */
+    private static Descarga fetchMore(Iterator<Producto> resultados, int cantidad) {
+        List<Producto> productos = new ArrayList<>();
+        while (productos.size() < cantidad && resultados.hasNext()) {
+            productos.add(resultados.next());
         }
+        return new Descarga(resultados, productos, resultados.hasNext());
+    }
+
+    private void addResults(Descarga descarga) {
+        pendingResults = descarga.resultados();
+        allProducts.addAll(descarga.productos());
+        hasMoreResults = descarga.hayMas();
     }
 
     /** 🔹 Renderiza los productos en cuadrícula (5x3) */
@@ -175,7 +228,7 @@ public class GalleryController {
         }
 
         btnPrev.setDisable(currentPage == 1);
-        btnNext.setDisable(currentPage == totalPages);
+        btnNext.setDisable(loading || currentPage >= totalPages && !hasMoreResults);
     }
 
     /** 🔹 Abre detalle de producto (más adelante se usará para mostrar información extendida) */
@@ -188,7 +241,7 @@ public class GalleryController {
 
             // 🔹 Cargar info adicional ANTES de mostrar el panel
             cls_browseEBAY helper = new cls_browseEBAY();
-            helper.mtd_informationAditional(token, producto);
+            helper.mtd_informationAditional(TokenManager.getToken(), producto);
 
             // 🔹 Ahora el producto ya tiene descripción, atributos y envío
             controller.setMainController(mainController);
@@ -205,6 +258,39 @@ public class GalleryController {
 
 
     @FXML private void nextPage() {
+        if (loading) {
+            return;
+        }
+
+        // Si la siguiente página aún no se descargó, pedirla en segundo plano y avanzar al llegar
+        if (currentPage * ITEMS_PER_PAGE >= allProducts.size() && hasMoreResults) {
+            int busqueda = currentSearch;
+            Iterator<Producto> resultados = pendingResults;
+            loading = true;
+            btnNext.setDisable(true);
+
+            CompletableFuture
+                    .supplyAsync(() -> fetchMore(resultados, ITEMS_PER_PAGE), ProductAnalysisService.getExecutor())
+                    .whenComplete((descarga, ex) -> Platform.runLater(() -> {
+                        if (busqueda != currentSearch) {
+                            return;
+                        }
+                        loading = false;
+                        if (ex != null) {
+                            ex.printStackTrace();
+                            NotificationManager.error("Error al cargar más productos.");
+                        } else {
+                            addResults(descarga);
+                        }
+                        showNextPage();
+                    }));
+            return;
+        }
+
+        showNextPage();
+    }
+
+    private void showNextPage() {
         int totalPages = (int) Math.ceil((double) allProducts.size() / ITEMS_PER_PAGE);
         if (currentPage < totalPages) {
             currentPage++;
@@ -239,47 +325,38 @@ public class GalleryController {
             Double max = txtPrecioMax.getText().isEmpty() ? null : Double.parseDouble(txtPrecioMax.getText());
 
             // VALIDAR CONDICIÓN (solo 1)
-            String condition = null;
+            SearchFilter.Condition condition = null;
 
             if (cbNuevo.isSelected() && cbUsado.isSelected()) {
                 NotificationManager.warning("Selecciona solo una condición: Nuevo o Usado.");
                 return;
             } else if (cbNuevo.isSelected()) {
-                condition = "new";
+                condition = SearchFilter.Condition.NEW;
             } else if (cbUsado.isSelected()) {
-                condition = "used";
+                condition = SearchFilter.Condition.USED;
             }
 
             // VALIDAR SORT (solo 1)
-            String sort = null;
+            SearchFilter.Sort sort = SearchFilter.Sort.BEST_MATCH;
             int sortCount = 0;
 
-            if (cbMenorPrecio.isSelected()) { sort = "price_asc"; sortCount++; }
-            if (cbMayorPrecio.isSelected()) { sort = "price_desc"; sortCount++; }
-            if (cbMasRecientes.isSelected()) { sort = "recent"; sortCount++; }
+            if (cbMenorPrecio.isSelected()) { sort = SearchFilter.Sort.PRICE_ASC; sortCount++; }
+            if (cbMayorPrecio.isSelected()) { sort = SearchFilter.Sort.PRICE_DESC; sortCount++; }
+            if (cbMasRecientes.isSelected()) { sort = SearchFilter.Sort.NEWLY_LISTED; sortCount++; }
 
             if (sortCount > 1) {
                 NotificationManager.warning("Selecciona solo un ordenamiento.");
                 return;
             }
 
-            // HACER LA CONSULTA
-            List<Producto> filtrados = apiLoader.obtenerProductos(
-                    token,
-                    searchTerm,
-                    min,
-                    max,
-                    condition,
-                    sort
-            );
-
-            // Render
-            allProducts.clear();
-            allProducts.addAll(filtrados);
-            currentPage = 1;
+            // HACER LA CONSULTA (los filtros se aplican en eBay)
+            SearchFilter filtro = SearchFilter.none()
+                    .withMinPrice(min)
+                    .withMaxPrice(max)
+                    .withCondition(condition)
+                    .withSort(sort);
 
-            renderPage();
-            updatePaginationButtons();
+            startSearch(searchTerm, filtro);
 
         } catch (Exception e) {
             e.printStackTrace();
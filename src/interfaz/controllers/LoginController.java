@@ -58,9 +58,9 @@ public class LoginController {
             // ✔ Guardar usuario real en sesión
             Sesion.iniciar(auth);
 
-            // ✔ Renovar token si caducó (o generar uno si aplica)
+            // ✔ Renovar token en segundo plano si caducó (o generar uno si aplica)
             NotificationManager.success("Inicio exitoso.");
-            TokenManager.refreshToken();
+            TokenManager.refreshTokenAsync();
             playFadeOut(() -> {
                 main.loadPanel("/interfaz/panel_search_main.fxml");
             });
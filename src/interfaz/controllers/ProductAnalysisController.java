@@ -175,7 +175,7 @@ public class ProductAnalysisController {
             txtFeedback.setText("\nFeedback positivo: " +
                     String.format("%.2f", r.vendedor.getFeedbackPorcentage()) + "%");
             txtFeedbackScore.setText("\nFeedback puntuación: " + r.vendedor.getFeedbackScore());
-            txtAntiguedad.setText("\nAntigüedad: " + (r.antiguedad != null ? r.antiguedad : "N/A"));
+            txtAntiguedad.setText("\nPublica desde hace: " + (r.antiguedad != null ? r.antiguedad : "N/A"));
             txtTrustScore.setText("\nTrustScore: " +
                     String.format("%.1f", r.trustScore) + " / 100");
         } else {
@@ -380,9 +380,7 @@ public class ProductAnalysisController {
                         if (mainController != null) {
                             mainController.actualizarWishlistCount(count);
                         }
-                        if (acordController != null) {
-                            acordController.recargarLista();
-                        }
+                        // El panel se recarga solo al recibir el borrado por EntityChangeBus
                     });
                 })
                 .exceptionally(ex -> {
@@ -1,14 +1,18 @@
 package service;
 
-import api.conect_API_eBay;
-import com.google.gson.JsonObject;
+import api.EbayRateLimiter;
+import api.MarketplaceProviders;
+import api.SearchFilter;
 import dao.*;
 import entities.*;
 import jakarta.persistence.EntityManager;
 import javafx.application.Platform;
 import org.hibernate.Hibernate;
+import utils.CacheManager;
 import utils.ReportService;
+import utils.SellerAgeStore;
 import utils.Sesion;
+import utils.TokenManager;
 import utils.cls_browseEBAY;
 
 import java.time.Instant;
@@ -30,16 +34,14 @@ public class ProductAnalysisService {
     private final WishlistDAO wishlistDAO = new WishlistDAO();
     private final ProductAnalysisDAO productAnalysisDAO = new ProductAnalysisDAO();
 
-    private final conect_API_eBay api = new conect_API_eBay();
     private final cls_browseEBAY browseEBAY = new cls_browseEBAY();
 
-    private final String tokenAPI = Sesion.getTokenAPI();
 
     // Pool de hilos compartido
     private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
 
-    // Caché de precios de mercado por nombre de producto
-    private static final Map<String, List<Double>> marketPriceCache = new ConcurrentHashMap<>();
+    // Precios que se están refrescando por lote (getItems), por itemId
+    private static final Map<String, CompletableFuture<Double>> preciosEnLote = new ConcurrentHashMap<>();
 
     public static ExecutorService getExecutor() {
         return EXECUTOR;
@@ -147,9 +149,8 @@ public class ProductAnalysisService {
                     () -> priceHistoryDAO.findAllByItemId(itemId), EXECUTOR
             );
 
-            CompletableFuture<List<Double>> preciosMercadoFut = CompletableFuture.supplyAsync(
-                    () -> cargarPreciosMercado(producto.getName()), EXECUTOR
-            );
+            // Petición HTTP asíncrona: no ocupa un hilo del pool mientras espera a eBay
+            CompletableFuture<List<Double>> preciosMercadoFut = cargarPreciosMercadoAsync(producto.getName());
 
             CompletableFuture<String> urlImagenFut = CompletableFuture.supplyAsync(
                     () -> imagesProductDAO.findMainImageByProduct(producto), EXECUTOR
@@ -206,6 +207,7 @@ public class ProductAnalysisService {
             if (vendedor != null) {
                 AntiguedadTrust at = obtenerAntiguedadYTrustScore(
                         vendedor,
+                        categoriaEbay(producto),
                         precioVal,
                         stats.promedio,
                         stats.desviacion
@@ -374,27 +376,43 @@ public class ProductAnalysisService {
         }
     }
 
-    private List<Double> cargarPreciosMercado(String nombreProducto) {
+    /**
+     * Precios de mercado del producto. Si los guardados ya pasaron su tiempo de refresco se
+     * devuelven igual y se recargan en segundo plano, así el análisis no espera a eBay.
+     */
+    private CompletableFuture<List<Double>> cargarPreciosMercadoAsync(String nombreProducto) {
         try {
-            // caché
-            List<Double> cached = marketPriceCache.get(nombreProducto);
-            if (cached != null && !cached.isEmpty()) {
-                System.out.println("♻ Precios mercado desde caché");
-                return cached;
-            }
-
-            String query = construirQueryInteligente(nombreProducto);
-            List<Double> precios = api.obtenerPreciosDelMercado(query, tokenAPI);
-            if (precios != null && !precios.isEmpty()) {
-                marketPriceCache.put(nombreProducto, precios);
-            }
-            return precios;
+            return CacheManager.MARKET_PRICES.getRefreshingAsync(CacheManager.normalizar(nombreProducto),
+                            clave -> consultarPreciosMercadoAsync(nombreProducto))
+                    .thenApply(precios -> precios != null ? precios : Collections.<Double>emptyList())
+                    .exceptionally(ex -> {
+                        System.err.println("⚠ Error cargando precios de mercado: " + ex.getMessage());
+                        return Collections.emptyList();
+                    });
         } catch (Exception e) {
             System.err.println("⚠ Error cargando precios de mercado: " + e.getMessage());
-            return Collections.emptyList();
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
     }
 
+    /**
+     * Consulta los precios a eBay; null si no hay (no se guarda en caché).
+     */
+    private CompletableFuture<List<Double>> consultarPreciosMercadoAsync(String nombreProducto) {
+        // Con poca cuota de búsqueda no se gasta una llamada: el análisis sigue sin precios de mercado
+        if (EbayRateLimiter.isQuotaLow(EbayRateLimiter.Endpoint.SEARCH)) {
+            System.out.println("⏳ Cuota de búsqueda baja ("
+                    + EbayRateLimiter.remainingQuota(EbayRateLimiter.Endpoint.SEARCH)
+                    + " restantes); se omiten precios de mercado");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String query = construirQueryInteligente(nombreProducto);
+        return TokenManager.getTokenAsync()
+                .thenCompose(token -> MarketplaceProviders.get().marketPrices(token, query))
+                .thenApply(precios -> precios != null && !precios.isEmpty() ? precios : null);
+    }
+
     private String construirQueryInteligente(String nombreProducto) {
         String[] stopWords = {"nuevo", "usado", "original", "garantía", "envío", "gratis",
                 "new", "used", "free", "shipping"};
@@ -522,19 +540,32 @@ public class ProductAnalysisService {
         return "Media";
     }
 
+    /**
+     * Id de categoría de eBay del producto, si ya está cargada; acota la búsqueda del vendedor.
+     */
+    private static String categoriaEbay(Producto producto) {
+        CategoryProduct categoria = producto.getIdCategory();
+        if (categoria == null || !Hibernate.isInitialized(categoria)) {
+            return null;
+        }
+        Integer id = categoria.getIdCategory();
+        return id != null && id > 0 ? id.toString() : null;
+    }
+
     private static class AntiguedadTrust {
         String antiguedad;
         double trustScore;
     }
 
     private AntiguedadTrust obtenerAntiguedadYTrustScore(Seller vendedor,
+                                                         String categoriaEbay,
                                                          double precioActual,
                                                          double promedioMercado,
                                                          double desviacion) {
         AntiguedadTrust at = new AntiguedadTrust();
         try {
             Map<String, String> infoAntiguedad =
-                    browseEBAY.calcularAccountAge(tokenAPI, vendedor.getUsername());
+                    browseEBAY.calcularAccountAge(TokenManager.getToken(), vendedor.getUsername(), categoriaEbay);
             String antiguedad = infoAntiguedad.getOrDefault("antiguedad", "Desconocida");
             at.antiguedad = antiguedad;
 
@@ -693,12 +724,68 @@ public class ProductAnalysisService {
         System.out.println("Nuevo historial guardado para " + item.getName() + ": " + newPrice);
     }
 
+    /**
+     * Actividad de todos los vendedores de la wishlist (en la categoría de cada producto)
+     * de una vez, para que los análisis que se lancen después no consulten la API vendedor por vendedor.
+     */
+    public CompletableFuture<Void> precargarVendedores(int userId) {
+        return CompletableFuture.supplyAsync(() -> SellerAgeStore.precargarWishlist(userId), EXECUTOR)
+                .thenCompose(carga -> carga);
+    }
+
+    /**
+     * Refresca en lote (grupos de 20 por petición) el precio actual de varios productos.
+     * Los análisis que se lancen después toman el precio de aquí en vez de pedirlo uno por uno.
+     */
+    public CompletableFuture<Map<String, Double>> precargarPrecios(Collection<String> itemIds) {
+        CompletableFuture<Map<String, Double>> lote = TokenManager.getTokenAsync()
+                .thenCompose(token -> MarketplaceProviders.get().prices(token, itemIds))
+                .exceptionally(ex -> Collections.emptyMap());
+
+        for (String itemId : itemIds) {
+            CompletableFuture<Double> precio = lote.thenApply(precios -> precios.get(itemId));
+            preciosEnLote.put(itemId, precio);
+
+            precio.whenComplete((valor, ex) -> {
+                if (valor != null) {
+                    CacheManager.LIVE_PRICES.put(itemId, valor);
+                }
+                preciosEnLote.remove(itemId, precio);
+            });
+        }
+
+        return lote;
+    }
+
     private Double obtenerPrecioDesdeAPI(String itemId) {
         try {
-            // Usa tu clase conect_API_eBay para obtener el precio actual
-            return api.obtenerPrecioActual(itemId, tokenAPI);
+            // 1) Precio que llega en un lote ya lanzado
+            CompletableFuture<Double> enLote = preciosEnLote.get(itemId);
+            if (enLote != null) {
+                Double precio = enLote.get(10, TimeUnit.SECONDS);
+                if (precio != null) {
+                    return precio;
+                }
+            }
+
+            // 2) Precio refrescado recientemente por lote
+            Double cacheado = CacheManager.LIVE_PRICES.getIfPresent(itemId);
+            if (cacheado != null) {
+                return cacheado;
+            }
+
+            // 3) Petición individual, salvo que quede poca cuota: se usa el último precio guardado
+            if (EbayRateLimiter.isQuotaLow(EbayRateLimiter.Endpoint.ITEM)) {
+                System.out.println("⏳ Cuota de items baja; se usa el precio guardado de " + itemId);
+                return null;
+            }
+            return MarketplaceProviders.get()
+                    .prices(TokenManager.getToken(), List.of(itemId))
+                    .join()
+                    .get(itemId);
         } catch (Exception e) {
-            System.err.println("Error al obtener precio desde la API: " + e.getMessage());
+            Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("Error al obtener precio desde la API: " + causa.getMessage());
             return null;
         }
     }
@@ -729,28 +816,13 @@ public class ProductAnalysisService {
 
         System.out.println("Buscando productos similares por modelo: " + nombreProducto);
 
-        List<JsonObject> items = api.buscarProductosSimilares(nombreProducto, tokenAPI);
-
-        List<TopProductoDTO> lista = new ArrayList<>();
-
-        for (JsonObject item : items) {
-            try {
-                String title = item.has("title") ? item.get("title").getAsString() : "Sin nombre";
-
-                JsonObject priceObj = item.getAsJsonObject("price");
-                if (priceObj == null) continue;
-
-                double price = priceObj.get("value").getAsDouble();
-
-                TopProductoDTO dto = new TopProductoDTO();
-                dto.titulo = title;
-                dto.precio = price;
-
-                lista.add(dto);
-
-            } catch (Exception ignored) {}
+        if (EbayRateLimiter.isQuotaLow(EbayRateLimiter.Endpoint.SEARCH)) {
+            System.out.println("⏳ Cuota de búsqueda baja; se omite el top 5");
+            return Collections.emptyList();
         }
 
+        List<TopProductoDTO> lista = buscarSimilaresAPI(nombreProducto);
+
         // Ordenar por precio ASC
         return lista.stream()
                 .sorted(Comparator.comparingDouble(o -> o.precio))
@@ -761,31 +833,49 @@ public class ProductAnalysisService {
         public String titulo;
         public double precio;
     }
-    public List<TopProductoDTO> obtenerTop5NegativosAPI(String nombreProducto) {
-        System.out.println("Buscando productos similares (caros) por modelo: " + nombreProducto);
-
-            List<JsonObject> items = api.buscarProductosSimilares(nombreProducto, tokenAPI);
 
+    /**
+     * Primera página de productos similares con precio, desde el proveedor de marketplace.
+     */
+    private List<TopProductoDTO> buscarSimilaresAPI(String nombreProducto) {
         List<TopProductoDTO> lista = new ArrayList<>();
 
-        for (JsonObject item : items) {
-            try {
-                String title = item.has("title") ? item.get("title").getAsString() : "Sin nombre";
+        List<Producto> items;
+        try {
+            items = MarketplaceProviders.get()
+                    .searchPage(TokenManager.getToken(), nombreProducto, 0, 50, SearchFilter.none())
+                    .join()
+                    .getItems();
+        } catch (CompletionException e) {
+            // Sin resultados del proveedor el top 5 queda vacío, como una búsqueda sin coincidencias
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Error al buscar productos similares: " + causa.getMessage());
+            return lista;
+        }
 
-                JsonObject priceObj = item.getAsJsonObject("price");
-                if (priceObj == null) continue;
+        for (Producto item : items) {
+            PriceHistory precio = item.getPriceHistory();
+            if (precio == null || precio.getPrice() == null) continue;
 
-                double price = priceObj.get("value").getAsDouble();
+            TopProductoDTO dto = new TopProductoDTO();
+            dto.titulo = item.getName() != null ? item.getName() : "Sin nombre";
+            dto.precio = precio.getPrice();
 
-                TopProductoDTO dto = new TopProductoDTO();
-                dto.titulo = title;
-                dto.precio = price;
+            lista.add(dto);
+        }
 
-                lista.add(dto);
+        return lista;
+    }
+    public List<TopProductoDTO> obtenerTop5NegativosAPI(String nombreProducto) {
+        System.out.println("Buscando productos similares (caros) por modelo: " + nombreProducto);
 
-            } catch (Exception ignored) {}
+        if (EbayRateLimiter.isQuotaLow(EbayRateLimiter.Endpoint.SEARCH)) {
+            System.out.println("⏳ Cuota de búsqueda baja; se omite el top 5");
+            return Collections.emptyList();
         }
 
+        List<TopProductoDTO> lista = buscarSimilaresAPI(nombreProducto);
+
         // Ordenar por precio DESC (más caros primero)
         return lista.stream()
                 .sorted((a, b) -> Double.compare(b.precio, a.precio))
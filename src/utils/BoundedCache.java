@@ -0,0 +1,558 @@
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 📦 Caché acotada por peso con admisión W-TinyLFU.
+ *
+ * <ul>
+ *   <li>Ventana (1% del peso): LRU donde entra toda clave nueva.</li>
+ *   <li>Principal (99%): SLRU con un tramo de prueba y uno protegido (80% de la principal).
+ *       Un acierto en prueba pasa la entrada a protegido.</li>
+ *   <li>Lo que sale de la ventana compite con la víctima de prueba; se queda la clave con
+ *       más accesos según {@link FrequencySketch}. Así una ráfaga de claves vistas una sola
+ *       vez no desplaza a las que se usan seguido.</li>
+ * </ul>
+ *
+ * Cada entrada tiene su propio vencimiento. Una lectura nunca devuelve una entrada vencida,
+ * y {@link #expirar()} (llamado por un hilo de mantenimiento) las quita en segundo plano
+ * con una rueda de temporización jerárquica: cada entrada se agenda en un casillero según
+ * su vencimiento y sólo se revisan los casilleros cuyo tiempo ya pasó, sin recorrer el mapa.
+ *
+ * Las lecturas no bloquean: el reordenamiento se hace sólo si el lock está libre, y bajo
+ * contención se pierde algún acceso en la política (nunca un dato).
+ *
+ * Las altas y bajas se avisan a un {@link Listener} (bajo el lock, así que debe ser rápido).
+ */
+final class BoundedCache {
+
+    /**
+     * Calcula el peso (bytes aproximados) de una entrada.
+     */
+    @FunctionalInterface
+    interface Weigher {
+        long pesar(String clave, Object valor);
+    }
+
+    /**
+     * Motivo por el que una entrada sale de la caché.
+     */
+    enum Causa { EXPLICITA, REEMPLAZADA, VENCIDA, DESALOJADA }
+
+    /**
+     * Recibe las altas y bajas de entradas, con su peso.
+     */
+    interface Listener {
+        void agregada(String clave, long peso);
+
+        void quitada(String clave, long peso, Causa causa);
+    }
+
+    private static final int VENTANA = 0;
+    private static final int PRUEBA = 1;
+    private static final int PROTEGIDO = 2;
+
+    /**
+     * Valor de una entrada junto con el momento ({@link System#nanoTime()}) en que se escribió.
+     */
+    record Lectura(Object valor, long escritoEn) {
+    }
+
+    private static final class Nodo {
+        final String clave;
+        volatile Object valor;
+        volatile long escritoEn;
+        volatile long venceEn;
+        long peso;
+        int cola;
+        Nodo anterior;
+        Nodo siguiente;
+        // Enlaces del casillero de la rueda de temporización
+        Nodo anteriorEnRueda;
+        Nodo siguienteEnRueda;
+
+        Nodo(String clave, Object valor, long peso, long venceEn) {
+            this.clave = clave;
+            this.valor = valor;
+            this.peso = peso;
+            this.venceEn = venceEn;
+            this.escritoEn = System.nanoTime();
+        }
+
+        boolean vencido(long ahora) {
+            return ahora - venceEn >= 0;
+        }
+    }
+
+    /**
+     * Lista doblemente enlazada; la cabeza es la entrada menos reciente.
+     */
+    private static final class Cola {
+        Nodo cabeza;
+        Nodo cola;
+        long peso;
+
+        void agregar(Nodo n) {
+            n.anterior = cola;
+            n.siguiente = null;
+            if (cola == null) {
+                cabeza = n;
+            } else {
+                cola.siguiente = n;
+            }
+            cola = n;
+            peso += n.peso;
+        }
+
+        void quitar(Nodo n) {
+            if (n.anterior == null) {
+                cabeza = n.siguiente;
+            } else {
+                n.anterior.siguiente = n.siguiente;
+            }
+            if (n.siguiente == null) {
+                cola = n.anterior;
+            } else {
+                n.siguiente.anterior = n.anterior;
+            }
+            n.anterior = null;
+            n.siguiente = null;
+            peso -= n.peso;
+        }
+
+        void alFinal(Nodo n) {
+            if (n != cola) {
+                quitar(n);
+                agregar(n);
+            }
+        }
+
+        void vaciar() {
+            cabeza = null;
+            cola = null;
+            peso = 0;
+        }
+    }
+
+    /**
+     * Rueda de temporización jerárquica. Los niveles tienen casilleros de ~1 s, ~1 min,
+     * ~1 h y ~1.6 días; una entrada se agenda en el nivel más fino que cubre su
+     * vencimiento y, al girar la rueda, baja de nivel hasta que su casillero vence.
+     * Agendar y quitar cuestan O(1). Se usa siempre bajo el lock.
+     */
+    private static final class Rueda {
+
+        private static final long[] SPANS = {
+                1L << 30,   // 1.07 s
+                1L << 36,   // 1.14 min
+                1L << 42,   // 1.22 h
+                1L << 47,   // 1.63 días
+                1L << 49,   // 6.5 días
+                1L << 49
+        };
+        private static final int[] CASILLEROS = {64, 64, 32, 4, 1};
+
+        private final Nodo[][] niveles = new Nodo[CASILLEROS.length][];
+        // Los tiempos se cuentan desde la creación para no depender del signo de nanoTime
+        private final long origen = System.nanoTime();
+        private long ahora;
+
+        Rueda() {
+            for (int i = 0; i < niveles.length; i++) {
+                niveles[i] = new Nodo[CASILLEROS[i]];
+                for (int j = 0; j < niveles[i].length; j++) {
+                    Nodo centinela = new Nodo(null, null, 0, 0);
+                    centinela.anteriorEnRueda = centinela;
+                    centinela.siguienteEnRueda = centinela;
+                    niveles[i][j] = centinela;
+                }
+            }
+        }
+
+        void agendar(Nodo n) {
+            Nodo centinela = casillero(n.venceEn - origen);
+            n.anteriorEnRueda = centinela.anteriorEnRueda;
+            n.siguienteEnRueda = centinela;
+            centinela.anteriorEnRueda.siguienteEnRueda = n;
+            centinela.anteriorEnRueda = n;
+        }
+
+        void desagendar(Nodo n) {
+            if (n.siguienteEnRueda != null) {
+                n.anteriorEnRueda.siguienteEnRueda = n.siguienteEnRueda;
+                n.siguienteEnRueda.anteriorEnRueda = n.anteriorEnRueda;
+                n.anteriorEnRueda = null;
+                n.siguienteEnRueda = null;
+            }
+        }
+
+        /**
+         * Gira la rueda hasta {@code nanoTime} y entrega las entradas vencidas; las que
+         * todavía no vencen se vuelven a agendar en un nivel más fino.
+         */
+        void avanzar(long nanoTime, Consumer<Nodo> vencida) {
+            long anterior = ahora;
+            ahora = nanoTime - origen;
+            for (int i = 0; i < CASILLEROS.length; i++) {
+                int desplazamiento = Long.numberOfTrailingZeros(SPANS[i]);
+                long ticksAntes = anterior >>> desplazamiento;
+                long delta = (ahora >>> desplazamiento) - ticksAntes;
+                if (delta <= 0) {
+                    break;
+                }
+                revisar(i, ticksAntes, delta, vencida);
+            }
+        }
+
+        private void revisar(int nivel, long ticksAntes, long delta, Consumer<Nodo> vencida) {
+            Nodo[] casilleros = niveles[nivel];
+            int mascara = casilleros.length - 1;
+            int pasos = (int) Math.min(1 + delta, casilleros.length);
+            int inicio = (int) (ticksAntes & mascara);
+
+            for (int i = inicio; i < inicio + pasos; i++) {
+                Nodo centinela = casilleros[i & mascara];
+                Nodo n = centinela.siguienteEnRueda;
+                centinela.anteriorEnRueda = centinela;
+                centinela.siguienteEnRueda = centinela;
+
+                while (n != centinela) {
+                    Nodo siguiente = n.siguienteEnRueda;
+                    n.anteriorEnRueda = null;
+                    n.siguienteEnRueda = null;
+
+                    if (n.venceEn - origen - ahora <= 0) {
+                        vencida.accept(n);
+                    } else {
+                        agendar(n);
+                    }
+                    n = siguiente;
+                }
+            }
+        }
+
+        private Nodo casillero(long vence) {
+            long duracion = vence - ahora;
+            int ultimo = niveles.length - 1;
+            for (int i = 0; i < ultimo; i++) {
+                if (duracion < SPANS[i + 1]) {
+                    long ticks = vence >>> Long.numberOfTrailingZeros(SPANS[i]);
+                    return niveles[i][(int) (ticks & (niveles[i].length - 1))];
+                }
+            }
+            return niveles[ultimo][0];
+        }
+
+        void vaciar() {
+            for (Nodo[] nivel : niveles) {
+                for (Nodo centinela : nivel) {
+                    centinela.anteriorEnRueda = centinela;
+                    centinela.siguienteEnRueda = centinela;
+                }
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, Nodo> datos = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Weigher pesador;
+    private final Listener listener;
+    private final FrequencySketch frecuencias;
+
+    private final long pesoMaximo;
+    private final long pesoMaximoVentana;
+    private final long pesoMaximoProtegido;
+
+    private final Cola ventana = new Cola();
+    private final Cola prueba = new Cola();
+    private final Cola protegido = new Cola();
+    private final Rueda rueda = new Rueda();
+
+    BoundedCache(long pesoMaximo, Weigher pesador, Listener listener) {
+        this.pesoMaximo = Math.max(1, pesoMaximo);
+        this.pesoMaximoVentana = Math.max(1, this.pesoMaximo / 100);
+        this.pesoMaximoProtegido = (this.pesoMaximo - pesoMaximoVentana) * 8 / 10;
+        this.pesador = pesador;
+        this.listener = listener;
+        // Se estima ~1 KB por entrada para dimensionar el contador de frecuencias
+        this.frecuencias = new FrequencySketch((int) Math.min(1 << 20, this.pesoMaximo / 1024));
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔍 LECTURA
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Valor vigente de la clave, o null si no está o ya venció.
+     */
+    Object get(String clave) {
+        Nodo n = buscar(clave);
+        return n != null ? n.valor : null;
+    }
+
+    /**
+     * Como {@link #get}, pero indica además cuándo se escribió el valor.
+     */
+    Lectura leer(String clave) {
+        Nodo n = buscar(clave);
+        return n != null ? new Lectura(n.valor, n.escritoEn) : null;
+    }
+
+    private Nodo buscar(String clave) {
+        Nodo n = datos.get(clave);
+        long ahora = System.nanoTime();
+
+        if (n != null && n.vencido(ahora)) {
+            quitarSiEs(n, Causa.VENCIDA);
+            n = null;
+        }
+
+        if (lock.tryLock()) {
+            try {
+                frecuencias.incrementar(clave);
+                if (n != null && datos.get(clave) == n) {
+                    registrarAcceso(n);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return n;
+    }
+
+    boolean containsKey(String clave) {
+        Nodo n = datos.get(clave);
+        if (n == null) {
+            return false;
+        }
+        if (n.vencido(System.nanoTime())) {
+            quitarSiEs(n, Causa.VENCIDA);
+            return false;
+        }
+        return true;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ✏️ ESCRITURA
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Guarda el valor hasta {@code ttlNanos} desde ahora. Una entrada más pesada que toda la
+     * caché no se admite.
+     */
+    void put(String clave, Object valor, long ttlNanos) {
+        long peso = Math.max(1, pesador.pesar(clave, valor));
+        long venceEn = System.nanoTime() + ttlNanos;
+
+        lock.lock();
+        try {
+            frecuencias.incrementar(clave);
+            Nodo existente = datos.get(clave);
+
+            if (peso > pesoMaximo) {
+                if (existente != null) {
+                    quitar(existente, Causa.REEMPLAZADA);
+                }
+                return;
+            }
+
+            if (existente != null) {
+                colaDe(existente).quitar(existente);
+                listener.quitada(clave, existente.peso, Causa.REEMPLAZADA);
+                existente.valor = valor;
+                existente.escritoEn = System.nanoTime();
+                existente.venceEn = venceEn;
+                existente.peso = peso;
+                rueda.desagendar(existente);
+                rueda.agendar(existente);
+                colaDe(existente).agregar(existente);
+                listener.agregada(clave, peso);
+                registrarAcceso(existente);
+            } else {
+                Nodo n = new Nodo(clave, valor, peso, venceEn);
+                n.cola = VENTANA;
+                ventana.agregar(n);
+                rueda.agendar(n);
+                datos.put(clave, n);
+                listener.agregada(clave, peso);
+            }
+
+            desalojar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(String clave) {
+        lock.lock();
+        try {
+            Nodo n = datos.get(clave);
+            if (n != null) {
+                quitar(n, Causa.EXPLICITA);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            for (Nodo n : datos.values()) {
+                listener.quitada(n.clave, n.peso, Causa.EXPLICITA);
+            }
+            datos.clear();
+            ventana.vaciar();
+            prueba.vaciar();
+            protegido.vaciar();
+            rueda.vaciar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gira la rueda de temporización y quita las entradas vencidas. Sólo revisa los
+     * casilleros cuyo tiempo pasó desde la última vuelta, así que una entrada puede
+     * quedar hasta ~1 s después de vencer (las lecturas igual la ignoran).
+     *
+     * @return cuántas se quitaron
+     */
+    int expirar() {
+        int[] quitadas = {0};
+
+        lock.lock();
+        try {
+            rueda.avanzar(System.nanoTime(), n -> {
+                if (datos.remove(n.clave, n)) {
+                    colaDe(n).quitar(n);
+                    listener.quitada(n.clave, n.peso, Causa.VENCIDA);
+                    quitadas[0]++;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        return quitadas[0];
+    }
+
+    int size() {
+        return datos.size();
+    }
+
+    long weight() {
+        lock.lock();
+        try {
+            return ventana.peso + prueba.peso + protegido.peso;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long maxWeight() {
+        return pesoMaximo;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ⚖️ POLÍTICA (bajo el lock)
+    // ═══════════════════════════════════════════════════════
+
+    private void registrarAcceso(Nodo n) {
+        switch (n.cola) {
+            case VENTANA -> ventana.alFinal(n);
+            case PROTEGIDO -> protegido.alFinal(n);
+            default -> {
+                prueba.quitar(n);
+                n.cola = PROTEGIDO;
+                protegido.agregar(n);
+
+                // Lo que no cabe en protegido vuelve a prueba como la entrada más reciente
+                while (protegido.peso > pesoMaximoProtegido && protegido.cabeza != n) {
+                    Nodo degradado = protegido.cabeza;
+                    protegido.quitar(degradado);
+                    degradado.cola = PRUEBA;
+                    prueba.agregar(degradado);
+                }
+            }
+        }
+    }
+
+    private void desalojar() {
+        // Lo que sale de la ventana pasa a prueba como candidato
+        Nodo candidato = null;
+        while (ventana.peso > pesoMaximoVentana && ventana.cabeza != null) {
+            Nodo n = ventana.cabeza;
+            ventana.quitar(n);
+            n.cola = PRUEBA;
+            prueba.agregar(n);
+            if (candidato == null) {
+                candidato = n;
+            }
+        }
+
+        while (pesoTotal() > pesoMaximo) {
+            Nodo victima = prueba.cabeza != null ? prueba.cabeza
+                    : protegido.cabeza != null ? protegido.cabeza
+                    : ventana.cabeza;
+            if (victima == null) {
+                return;
+            }
+
+            if (candidato == null || candidato == victima || candidato.cola != PRUEBA) {
+                if (victima == candidato) {
+                    candidato = candidato.siguiente;
+                }
+                quitar(victima, causaDesalojo(victima));
+                continue;
+            }
+
+            // Admisión TinyLFU: sobrevive la clave con más accesos
+            if (frecuencias.frecuencia(candidato.clave) > frecuencias.frecuencia(victima.clave)) {
+                quitar(victima, causaDesalojo(victima));
+            } else {
+                Nodo siguiente = candidato.siguiente;
+                quitar(candidato, causaDesalojo(candidato));
+                candidato = siguiente;
+            }
+        }
+    }
+
+    private long pesoTotal() {
+        return ventana.peso + prueba.peso + protegido.peso;
+    }
+
+    private Cola colaDe(Nodo n) {
+        return switch (n.cola) {
+            case VENTANA -> ventana;
+            case PRUEBA -> prueba;
+            default -> protegido;
+        };
+    }
+
+    /**
+     * Una entrada ya vencida que sale por falta de espacio cuenta como vencida.
+     */
+    private static Causa causaDesalojo(Nodo n) {
+        return n.vencido(System.nanoTime()) ? Causa.VENCIDA : Causa.DESALOJADA;
+    }
+
+    private void quitar(Nodo n, Causa causa) {
+        if (datos.remove(n.clave, n)) {
+            colaDe(n).quitar(n);
+            rueda.desagendar(n);
+            listener.quitada(n.clave, n.peso, causa);
+        }
+    }
+
+    private void quitarSiEs(Nodo n, Causa causa) {
+        lock.lock();
+        try {
+            quitar(n, causa);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
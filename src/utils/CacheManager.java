@@ -1,143 +1,263 @@
 package utils;
 
-import java.time.Instant;
+import javafx.scene.image.Image;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Sistema de caché para optimizar consultas repetidas.
  * Reduce llamadas a la BD y a la API.
+ *
+ * La caché se divide en regiones tipadas ({@link CacheRegion}), cada una con su propio
+ * límite de memoria y tiempo de vida. Las entradas se pesan en bytes aproximados y, al
+ * pasar el límite, se desalojan las menos usadas (ver {@link BoundedCache}). Los valores
+ * de cada región se pueden cambiar con {@code -Dprims.cache.ttl.<region>=<segundos>},
+ * {@code -Dprims.cache.refresh.<region>=<segundos>} y {@code -Dprims.cache.max.mb.<region>}.
+ *
+ * Cada región lleva sus estadísticas ({@link CacheStats}): se publican por JMX y se
+ * imprime un resumen cada {@code -Dprims.cache.stats.interval.s} segundos (600 por
+ * defecto; 0 lo desactiva).
  */
 public class CacheManager {
 
-    // Tiempo de vida del caché (5 minutos)
-    private static final long CACHE_TTL_MS = 5 * 60 * 1000;
+    // Bytes extra por entrada: nodo, entrada del mapa y referencias
+    private static final long PESO_ENTRADA = 96;
 
-    // Estructura para almacenar datos con timestamp
-    private static class CacheEntry<T> {
-        T data;
-        long timestamp;
+    // Peso asumido para objetos sin estimación propia (entidades, DTOs)
+    private static final long PESO_OBJETO = 512;
 
-        CacheEntry(T data) {
-            this.data = data;
-            this.timestamp = System.currentTimeMillis();
-        }
+    // Elementos de una colección que se miden para extrapolar su peso
+    private static final int MUESTRA_COLECCION = 8;
 
-        boolean isExpired() {
-            return (System.currentTimeMillis() - timestamp) > CACHE_TTL_MS;
-        }
-    }
+    private static final Map<String, CacheStats> estadisticas = new ConcurrentHashMap<>();
+    private static final List<CacheRegion<?, ?>> regiones = new CopyOnWriteArrayList<>();
 
-    // Cachés específicos
-    private static final Map<String, CacheEntry<Object>> genericCache = new ConcurrentHashMap<>();
+    // Resúmenes de otras cachés (p. ej. la de segundo nivel de Hibernate) que se imprimen junto al propio
+    private static final List<Runnable> resumenesExtra = new CopyOnWriteArrayList<>();
+
+    // ═══════════════════════════════════════════════════════
+    // 🗂️ REGIONES COMPARTIDAS
+    // ═══════════════════════════════════════════════════════
 
     /**
-     * Guarda un valor en caché con una clave
+     * Precios de mercado por nombre de producto normalizado ({@link #normalizar}).
+     * Pasados 5 minutos se recargan en segundo plano; a los 30 se descartan.
      */
-    public static <T> void put(String key, T value) {
-        if (key != null && value != null) {
-            genericCache.put(key, new CacheEntry<>(value));
-        }
-    }
+    public static final CacheRegion<String, List<Double>> MARKET_PRICES =
+            region("market_price", Duration.ofMinutes(30), Duration.ofMinutes(5), 4);
 
     /**
-     * Obtiene un valor del caché si existe y no ha expirado
+     * Precio actual de un item (refrescado por lotes), por itemId.
      */
-    @SuppressWarnings("unchecked")
-    public static <T> T get(String key, Class<T> type) {
-        CacheEntry<Object> entry = genericCache.get(key);
+    public static final CacheRegion<String, Double> LIVE_PRICES =
+            region("live_price", Duration.ofMinutes(5), 2);
 
-        if (entry == null) {
-            return null;
-        }
+    /**
+     * Imagen de producto, por URL.
+     */
+    public static final CacheRegion<String, Image> IMAGES =
+            region("image", Duration.ofHours(1), 32);
 
-        if (entry.isExpired()) {
-            genericCache.remove(key);
-            return null;
-        }
+    // Un único hilo de mantenimiento: vencimientos cada segundo y el resumen periódico
+    private static final ScheduledExecutorService MANTENIMIENTO = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-mantenimiento");
+        t.setDaemon(true);
+        return t;
+    });
 
-        try {
-            return type.cast(entry.data);
-        } catch (ClassCastException e) {
-            return null;
+    static {
+        MANTENIMIENTO.scheduleWithFixedDelay(CacheManager::cleanExpired, 1, 1, TimeUnit.SECONDS);
+
+        long intervalo = Long.getLong("prims.cache.stats.interval.s", 600);
+        if (intervalo > 0) {
+            MANTENIMIENTO.scheduleAtFixedRate(CacheManager::imprimirResumen, intervalo, intervalo, TimeUnit.SECONDS);
         }
     }
 
     /**
-     * Verifica si existe un valor en caché y no ha expirado
+     * Crea una región sin recarga anticipada.
+     *
+     * @param maxMb memoria máxima de la región, en MB
      */
-    public static boolean has(String key) {
-        CacheEntry<Object> entry = genericCache.get(key);
-
-        if (entry == null) {
-            return false;
-        }
-
-        if (entry.isExpired()) {
-            genericCache.remove(key);
-            return false;
-        }
-
-        return true;
+    public static <K, V> CacheRegion<K, V> region(String nombre, Duration ttl, long maxMb) {
+        return region(nombre, ttl, null, maxMb);
     }
 
     /**
-     * Elimina una entrada del caché
+     * Crea una región y la registra para el mantenimiento y las estadísticas.
+     *
+     * @param refresco edad a partir de la cual {@link CacheRegion#getRefreshingAsync}
+     *                 recarga en segundo plano; null si no aplica
+     * @param maxMb    memoria máxima de la región, en MB
      */
-    public static void remove(String key) {
-        genericCache.remove(key);
+    public static <K, V> CacheRegion<K, V> region(String nombre, Duration ttl, Duration refresco, long maxMb) {
+        Long ttlSegundos = Long.getLong("prims.cache.ttl." + nombre);
+        Long refrescoSegundos = Long.getLong("prims.cache.refresh." + nombre);
+        long mb = Long.getLong("prims.cache.max.mb." + nombre, maxMb);
+
+        CacheRegion<K, V> region = new CacheRegion<>(nombre,
+                ttlSegundos != null ? Duration.ofSeconds(ttlSegundos) : ttl,
+                refrescoSegundos != null ? Duration.ofSeconds(refrescoSegundos) : refresco,
+                mb * 1024 * 1024,
+                stats(nombre));
+        regiones.add(region);
+        return region;
     }
 
     /**
      * Limpia todo el caché
      */
     public static void clear() {
-        genericCache.clear();
+        regiones.forEach(CacheRegion::invalidateAll);
     }
 
     /**
-     * Limpia entradas expiradas
+     * Limpia entradas expiradas. Lo hace solo el hilo de mantenimiento cada segundo;
+     * no recorre el caché, sólo las entradas cuyo vencimiento ya pasó.
      */
     public static void cleanExpired() {
-        genericCache.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        for (CacheRegion<?, ?> region : regiones) {
+            try {
+                region.expirar();
+            } catch (RuntimeException e) {
+                // Un error no puede cancelar la tarea periódica
+                System.err.println("⚠️ Error limpiando el caché " + region.getNombre() + ": " + e.getMessage());
+            }
+        }
     }
 
     /**
      * Obtiene el tamaño actual del caché
      */
     public static int size() {
-        return genericCache.size();
+        return regiones.stream().mapToInt(CacheRegion::size).sum();
     }
 
-    // ═══════════════════════════════════════════════════════
-    // 🔹 MÉTODOS ESPECÍFICOS PARA TIPOS COMUNES
-    // ═══════════════════════════════════════════════════════
+    /**
+     * Bytes aproximados que ocupa el caché.
+     */
+    public static long weight() {
+        return regiones.stream().mapToLong(CacheRegion::weight).sum();
+    }
 
     /**
-     * Clave para precios de mercado
+     * Estadísticas por región, ordenadas por nombre.
      */
-    public static String marketPriceKey(String productName) {
-        return "market_price:" + productName.toLowerCase().trim();
+    public static Map<String, CacheStats> estadisticas() {
+        return new TreeMap<>(estadisticas);
     }
 
     /**
-     * Clave para imagen de producto
+     * Imprime una línea por región con sus aciertos, cargas y desalojos.
      */
-    public static String imageKey(String itemId) {
-        return "image:" + itemId;
+    public static void imprimirResumen() {
+        long maximo = regiones.stream().mapToLong(CacheRegion::maxWeight).sum();
+        StringBuilder texto = new StringBuilder(String.format(
+                "📊 Caché: %d entradas, %.1f de %.1f MB%n",
+                size(), weight() / 1048576.0, maximo / 1048576.0));
+        for (CacheStats s : estadisticas().values()) {
+            texto.append("   ").append(s.resumen()).append(System.lineSeparator());
+        }
+        System.out.print(texto);
+
+        for (Runnable resumen : resumenesExtra) {
+            try {
+                resumen.run();
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ No se pudo imprimir un resumen de caché: " + e.getMessage());
+            }
+        }
     }
 
     /**
-     * Clave para antigüedad de vendedor
+     * Agrega un resumen que se imprime con cada {@link #imprimirResumen()}.
      */
-    public static String sellerAgeKey(String username) {
-        return "seller_age:" + username;
+    public static void registrarResumen(Runnable resumen) {
+        resumenesExtra.add(resumen);
     }
 
     /**
-     * Clave para análisis de producto
+     * Clave de texto normalizada (minúsculas, sin espacios en los extremos).
      */
-    public static String analysisKey(String itemId) {
-        return "analysis:" + itemId;
+    public static String normalizar(String texto) {
+        return texto == null ? "" : texto.toLowerCase().trim();
+    }
+
+    private static CacheStats stats(String nombre) {
+        CacheStats existente = estadisticas.get(nombre);
+        if (existente != null) {
+            return existente;
+        }
+
+        CacheStats nuevo = new CacheStats(nombre);
+        existente = estadisticas.putIfAbsent(nombre, nuevo);
+        if (existente != null) {
+            return existente;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(nuevo,
+                    new ObjectName("prims:type=Cache,namespace=" + ObjectName.quote(nombre)));
+        } catch (Exception e) {
+            System.err.println("⚠️ No se pudieron publicar por JMX las estadísticas de " + nombre + ": " + e.getMessage());
+        }
+        return nuevo;
+    }
+
+    static long pesoEntrada(String clave, Object valor) {
+        return PESO_ENTRADA + estimarBytes(clave) + estimarBytes(valor);
+    }
+
+    /**
+     * Bytes aproximados de un valor. No recorre grafos de objetos: las colecciones se
+     * extrapolan a partir de sus primeros elementos y el resto usa un peso fijo.
+     */
+    static long estimarBytes(Object valor) {
+        if (valor == null) {
+            return 0;
+        }
+        if (valor instanceof CharSequence texto) {
+            return 40 + texto.length();
+        }
+        if (valor.getClass() == Object.class || valor instanceof Number || valor instanceof Boolean || valor instanceof Character || valor instanceof Enum) {
+            return 16;
+        }
+        if (valor instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (valor instanceof Image imagen) {
+            return 256 + (long) (imagen.getWidth() * imagen.getHeight() * 4);
+        }
+        if (valor instanceof Collection<?> coleccion) {
+            return 48 + estimarElementos(coleccion.iterator(), coleccion.size());
+        }
+        if (valor instanceof Map<?, ?> mapa) {
+            return 64 + 32L * mapa.size()
+                    + estimarElementos(mapa.keySet().iterator(), mapa.size())
+                    + estimarElementos(mapa.values().iterator(), mapa.size());
+        }
+        return PESO_OBJETO;
+    }
+
+    private static long estimarElementos(Iterator<?> elementos, int total) {
+        long medido = 0;
+        int muestra = 0;
+        while (muestra < MUESTRA_COLECCION && elementos.hasNext()) {
+            medido += 8 + estimarBytes(elementos.next());
+            muestra++;
+        }
+        return muestra == 0 ? 0 : medido * total / muestra;
     }
 }
@@ -0,0 +1,352 @@
+package utils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 🗂️ Región tipada de la caché: un espacio de claves con su propio límite de memoria,
+ * tiempo de vida y, opcionalmente, tiempo de refresco. Se crean con
+ * {@link CacheManager#region}; sus estadísticas se publican con el nombre de la región.
+ *
+ * {@link #get(Object, Function)} carga de forma atómica: si varios hilos piden la misma
+ * clave ausente, sólo uno ejecuta el cargador y los demás esperan su resultado.
+ * Un resultado null no se guarda, salvo que la región recuerde las ausencias
+ * ({@link #withNegativeTtl}): entonces se guarda una marca que se distingue de
+ * "no consultado" y evita repetir la consulta hasta que vence.
+ *
+ * Una carga que empezó antes de un {@link #invalidate} no guarda su resultado: puede
+ * haber leído el valor anterior al cambio que motivó la invalidación.
+ *
+ * @param <K> tipo de clave; se guarda como {@code String.valueOf(clave)}
+ * @param <V> tipo de valor
+ */
+public final class CacheRegion<K, V> {
+
+    // Marca de "se consultó y no existe"; nunca sale de la región
+    private static final Object AUSENTE = new Object();
+
+    private final String nombre;
+    private final Duration ttl;
+    private volatile Duration ttlNegativo;
+    private final Duration refresco;
+    private final CacheStats stats;
+    private final BoundedCache cache;
+
+    // Cargas en curso por clave: las consultas concurrentes comparten una sola
+    private final ConcurrentHashMap<String, CompletableFuture<V>> cargasEnCurso = new ConcurrentHashMap<>();
+
+    // Generación de cada clave (repartidas en franjas por hash para no crecer con las claves):
+    // invalidate la incrementa y una carga sólo guarda si no cambió mientras corría.
+    // Comparar y guardar ocurre bajo el cerrojo de la franja, el mismo que toma invalidate,
+    // así una invalidación no puede colarse entre ambos pasos.
+    // Dos claves en la misma franja a lo sumo pierden un guardado, nunca guardan de más
+    private static final int FRANJAS = 64;
+    private final AtomicLongArray generaciones = new AtomicLongArray(FRANJAS);
+    private final Object[] cerrojos = new Object[FRANJAS];
+
+    CacheRegion(String nombre, Duration ttl, Duration refresco, long pesoMaximo, CacheStats stats) {
+        this.nombre = nombre;
+        this.ttl = ttl;
+        this.refresco = refresco;
+        this.stats = stats;
+        for (int i = 0; i < FRANJAS; i++) {
+            cerrojos[i] = new Object();
+        }
+        this.cache = new BoundedCache(pesoMaximo,
+                (clave, valor) -> CacheManager.pesoEntrada(clave, valor),
+                new BoundedCache.Listener() {
+                    @Override
+                    public void agregada(String clave, long peso) {
+                        stats.agregada(peso);
+                    }
+
+                    @Override
+                    public void quitada(String clave, long peso, BoundedCache.Causa causa) {
+                        stats.quitada(peso, causa);
+                    }
+                });
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Hace que la región recuerde las claves sin valor durante {@code ttlNegativo}.
+     * Se llama al crearla; devuelve la misma región.
+     */
+    public CacheRegion<K, V> withNegativeTtl(Duration ttlNegativo) {
+        this.ttlNegativo = ttlNegativo;
+        return this;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔍 LECTURA
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Valor guardado para la clave, o null si no está o ya venció.
+     */
+    @SuppressWarnings("unchecked")
+    public V getIfPresent(K key) {
+        Object valor = cache.get(clave(key));
+        if (valor == null) {
+            stats.fallo();
+            return null;
+        }
+        stats.acierto();
+        return valor == AUSENTE ? null : (V) valor;
+    }
+
+    /**
+     * true si la clave se marcó como inexistente y la marca sigue vigente.
+     */
+    public boolean isKnownAbsent(K key) {
+        boolean ausente = cache.get(clave(key)) == AUSENTE;
+        if (ausente) {
+            stats.acierto();
+        }
+        return ausente;
+    }
+
+    /**
+     * Marca la clave como inexistente durante el TTL negativo (o el TTL de la región si
+     * no se configuró uno).
+     */
+    public void markAbsent(K key) {
+        if (key != null) {
+            Duration duracion = ttlNegativo != null ? ttlNegativo : ttl;
+            cache.put(clave(key), AUSENTE, duracion.toNanos());
+        }
+    }
+
+    /**
+     * Valor guardado para la clave o, si no está, el que devuelve {@code loader}.
+     * El cargador se ejecuta una sola vez aunque varios hilos pidan la clave a la vez;
+     * sus errores se propagan a todos ellos. No debe pedir la misma clave a esta región.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        String clave = clave(key);
+        Object guardado = cache.get(clave);
+        if (guardado != null) {
+            stats.acierto();
+            return guardado == AUSENTE ? null : (V) guardado;
+        }
+        stats.fallo();
+
+        CompletableFuture<V> nueva = new CompletableFuture<>();
+        CompletableFuture<V> existente = cargasEnCurso.putIfAbsent(clave, nueva);
+        if (existente != null) {
+            return esperar(existente);
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            // Otro hilo pudo terminar de cargarla entre la consulta y el registro
+            Object recienCargado = cache.get(clave);
+            if (recienCargado != null) {
+                V valor = recienCargado == AUSENTE ? null : (V) recienCargado;
+                nueva.complete(valor);
+                return valor;
+            }
+
+            long generacion = generacion(clave);
+            V valor = loader.apply(key);
+            stats.carga(System.nanoTime() - inicio, true);
+            if (valor != null) {
+                guardarSiVigente(clave, generacion, valor, ttl);
+            } else if (ttlNegativo != null) {
+                guardarSiVigente(clave, generacion, AUSENTE, ttlNegativo);
+            }
+            nueva.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            stats.carga(System.nanoTime() - inicio, false);
+            nueva.completeExceptionally(e);
+            throw e;
+        } finally {
+            // El valor ya está guardado: quien llegue después lo encuentra en la caché
+            cargasEnCurso.remove(clave, nueva);
+        }
+    }
+
+    /**
+     * Versión asíncrona con recarga anticipada (stale-while-revalidate).
+     *
+     * <ul>
+     *   <li>Entrada más nueva que el tiempo de refresco: se devuelve tal cual.</li>
+     *   <li>Entrada más vieja, pero dentro del TTL: se devuelve al instante y se lanza una
+     *       única recarga en segundo plano que la reemplaza.</li>
+     *   <li>Sin entrada (o vencida): se espera a la carga, compartida entre quienes la piden a la vez.</li>
+     * </ul>
+     *
+     * Si el cargador devuelve null la entrada no se toca: se conserva el valor anterior
+     * hasta su TTL.
+     *
+     * @return el valor, o null si no había y el cargador no trajo nada
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<V> getRefreshingAsync(K key, Function<? super K, CompletableFuture<V>> loader) {
+        BoundedCache.Lectura lectura = cache.leer(clave(key));
+
+        if (lectura != null) {
+            stats.acierto();
+            if (lectura.valor() == AUSENTE) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (refresco != null && System.nanoTime() - lectura.escritoEn() >= refresco.toNanos()) {
+                cargarAsync(key, loader, true);
+            }
+            return CompletableFuture.completedFuture((V) lectura.valor());
+        }
+
+        stats.fallo();
+        return cargarAsync(key, loader, false);
+    }
+
+    private CompletableFuture<V> cargarAsync(
+            K key, Function<? super K, CompletableFuture<V>> loader, boolean enSegundoPlano) {
+        String clave = clave(key);
+        CompletableFuture<V> nueva = new CompletableFuture<>();
+        CompletableFuture<V> existente = cargasEnCurso.putIfAbsent(clave, nueva);
+        if (existente != null) {
+            return existente.copy();
+        }
+
+        if (enSegundoPlano) {
+            stats.recarga();
+        }
+
+        long inicio = System.nanoTime();
+        long generacion = generacion(clave);
+        CompletableFuture<V> carga;
+        try {
+            carga = loader.apply(key);
+        } catch (RuntimeException e) {
+            carga = CompletableFuture.failedFuture(e);
+        }
+
+        carga.whenComplete((valor, error) -> {
+            stats.carga(System.nanoTime() - inicio, error == null);
+            if (error == null) {
+                if (valor != null) {
+                    guardarSiVigente(clave, generacion, valor, ttl);
+                }
+            } else if (enSegundoPlano) {
+                System.err.println("⚠️ No se pudo recargar " + nombre + ":" + clave + ": " + error.getMessage());
+            }
+
+            // Se libera antes de completar para que nadie se una a un resultado ya entregado
+            cargasEnCurso.remove(clave, nueva);
+            if (error != null) {
+                nueva.completeExceptionally(error);
+            } else {
+                nueva.complete(valor);
+            }
+        });
+
+        return nueva.copy();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ✏️ ESCRITURA
+    // ═══════════════════════════════════════════════════════
+
+    public void put(K key, V value) {
+        if (key != null && value != null) {
+            cache.put(clave(key), value, ttl.toNanos());
+        }
+    }
+
+    public void invalidate(K key) {
+        if (key != null) {
+            String clave = clave(key);
+            int franja = franja(clave);
+            synchronized (cerrojos[franja]) {
+                generaciones.incrementAndGet(franja);
+                cache.remove(clave);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        // Lo guardado antes de cambiar cada franja lo borra el clear; lo posterior ya no se guarda
+        for (int i = 0; i < FRANJAS; i++) {
+            synchronized (cerrojos[i]) {
+                generaciones.incrementAndGet(i);
+            }
+        }
+        cache.clear();
+    }
+
+    /**
+     * Guarda el resultado de una carga sólo si la clave no se invalidó mientras corría
+     * (la carga pudo leer el valor anterior al cambio): en ese caso se entrega pero no se guarda.
+     */
+    private void guardarSiVigente(String clave, long generacion, Object valor, Duration duracion) {
+        int franja = franja(clave);
+        synchronized (cerrojos[franja]) {
+            if (generaciones.get(franja) == generacion) {
+                cache.put(clave, valor, duracion.toNanos());
+            }
+        }
+    }
+
+    private long generacion(String clave) {
+        return generaciones.get(franja(clave));
+    }
+
+    private static int franja(String clave) {
+        return (clave.hashCode() & 0x7fffffff) % FRANJAS;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Bytes aproximados que ocupa la región.
+     */
+    public long weight() {
+        return cache.weight();
+    }
+
+    long maxWeight() {
+        return cache.maxWeight();
+    }
+
+    int expirar() {
+        return cache.expirar();
+    }
+
+    private static String clave(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static <T> T esperar(CompletableFuture<T> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+}
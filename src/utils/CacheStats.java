@@ -0,0 +1,160 @@
+package utils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de un espacio de claves de la caché. Los registra {@link CacheManager};
+ * son seguros entre hilos y no bloquean.
+ */
+public final class CacheStats implements CacheStatsMBean {
+
+    private final String namespace;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder cargas = new LongAdder();
+    private final LongAdder cargasFallidas = new LongAdder();
+    private final LongAdder tiempoCargaNanos = new LongAdder();
+    private final LongAdder recargas = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder vencimientos = new LongAdder();
+
+    // No se reinician: reflejan lo que hay en la caché
+    private final LongAdder entradas = new LongAdder();
+    private final LongAdder pesoBytes = new LongAdder();
+
+    CacheStats(String namespace) {
+        this.namespace = namespace;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ✏️ REGISTRO
+    // ═══════════════════════════════════════════════════════
+
+    void acierto() {
+        aciertos.increment();
+    }
+
+    void fallo() {
+        fallos.increment();
+    }
+
+    void carga(long nanos, boolean exitosa) {
+        cargas.increment();
+        tiempoCargaNanos.add(nanos);
+        if (!exitosa) {
+            cargasFallidas.increment();
+        }
+    }
+
+    void recarga() {
+        recargas.increment();
+    }
+
+    void agregada(long peso) {
+        entradas.increment();
+        pesoBytes.add(peso);
+    }
+
+    void quitada(long peso, BoundedCache.Causa causa) {
+        entradas.decrement();
+        pesoBytes.add(-peso);
+        switch (causa) {
+            case DESALOJADA -> desalojos.increment();
+            case VENCIDA -> vencimientos.increment();
+            default -> {
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 📊 LECTURA (JMX)
+    // ═══════════════════════════════════════════════════════
+
+    @Override
+    public String getNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public long getHitCount() {
+        return aciertos.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return fallos.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long consultas = getHitCount() + getMissCount();
+        return consultas == 0 ? 0.0 : (double) getHitCount() / consultas;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return cargas.sum();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return cargasFallidas.sum();
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        long total = getLoadCount();
+        return total == 0 ? 0.0 : tiempoCargaNanos.sum() / 1_000_000.0 / total;
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return recargas.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return desalojos.sum();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return vencimientos.sum();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return entradas.sum();
+    }
+
+    @Override
+    public long getWeightBytes() {
+        return pesoBytes.sum();
+    }
+
+    @Override
+    public void resetStatistics() {
+        aciertos.reset();
+        fallos.reset();
+        cargas.reset();
+        cargasFallidas.reset();
+        tiempoCargaNanos.reset();
+        recargas.reset();
+        desalojos.reset();
+        vencimientos.reset();
+    }
+
+    /**
+     * Una línea del resumen periódico.
+     */
+    String resumen() {
+        return String.format(Locale.ROOT,
+                "%-14s %7d entradas %9.1f KB | aciertos %6.1f%% (%d/%d) | cargas %d (%d fallidas, %.1f ms, %d en segundo plano) | desalojos %d | vencidas %d",
+                namespace, getEntryCount(), getWeightBytes() / 1024.0,
+                getHitRate() * 100, getHitCount(), getHitCount() + getMissCount(),
+                getLoadCount(), getLoadFailureCount(), getAverageLoadMillis(), getRefreshCount(),
+                getEvictionCount(), getExpirationCount());
+    }
+}
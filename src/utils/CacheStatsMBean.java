@@ -0,0 +1,43 @@
+package utils;
+
+/**
+ * 📊 Estadísticas de un espacio de claves de {@link CacheManager}, visibles por JMX
+ * (jconsole / VisualVM) como {@code prims:type=Cache,namespace=<espacio>}.
+ */
+public interface CacheStatsMBean {
+
+    String getNamespace();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * Aciertos sobre el total de consultas (0 a 1).
+     */
+    double getHitRate();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadMillis();
+
+    /**
+     * Recargas en segundo plano de entradas viejas que se siguieron sirviendo mientras tanto.
+     */
+    long getRefreshCount();
+
+    long getEvictionCount();
+
+    long getExpirationCount();
+
+    long getEntryCount();
+
+    long getWeightBytes();
+
+    /**
+     * Vuelve a cero los contadores (no las entradas ni su peso).
+     */
+    void resetStatistics();
+}
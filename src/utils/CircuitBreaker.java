@@ -0,0 +1,130 @@
+package utils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * ⚡ Circuit breaker para un servicio remoto.
+ *
+ * <ul>
+ *   <li>CLOSED: las peticiones pasan; tras {@code umbralFallos} fallos seguidos se abre.</li>
+ *   <li>OPEN: se rechaza todo al instante durante {@code tiempoAbierto}.</li>
+ *   <li>HALF_OPEN: se deja pasar una sola petición de prueba; si responde bien se cierra,
+ *       si falla se vuelve a abrir.</li>
+ * </ul>
+ *
+ * Sólo deben contarse como fallo los errores de red, timeouts, 5xx y 429; un 4xx
+ * es un problema de la petición, no del servicio.
+ */
+public class CircuitBreaker {
+
+    public enum Estado { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Error devuelto mientras el circuito está abierto (no se hizo ninguna petición).
+     */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException(String nombre) {
+            super("Circuito abierto para " + nombre + ": eBay no responde");
+        }
+    }
+
+    private final String nombre;
+    private final int umbralFallos;
+    private final long tiempoAbiertoMillis;
+
+    private Estado estado = Estado.CLOSED;
+    private int fallosSeguidos;
+    private long abiertoDesde;
+    private boolean pruebaEnCurso;
+
+    public CircuitBreaker(String nombre, int umbralFallos, Duration tiempoAbierto) {
+        this.nombre = nombre;
+        this.umbralFallos = Math.max(1, umbralFallos);
+        this.tiempoAbiertoMillis = tiempoAbierto.toMillis();
+    }
+
+    /**
+     * Pide permiso para hacer una petición. Quien lo obtiene debe llamar luego a
+     * {@link #exito()}, {@link #fallo()} o {@link #abandonar()}.
+     */
+    public synchronized boolean intentar() {
+        switch (estado) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - abiertoDesde < tiempoAbiertoMillis) {
+                    return false;
+                }
+                estado = Estado.HALF_OPEN;
+                pruebaEnCurso = true;
+                System.out.println("⚡ Circuito " + nombre + " medio abierto: se prueba una petición");
+                return true;
+            default:
+                if (pruebaEnCurso) {
+                    return false;
+                }
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    /**
+     * Igual que {@link #intentar()} pero lanza {@link CircuitOpenException} si no hay permiso.
+     */
+    public void permitir() throws CircuitOpenException {
+        if (!intentar()) {
+            throw new CircuitOpenException(nombre);
+        }
+    }
+
+    public synchronized void exito() {
+        if (estado != Estado.CLOSED) {
+            System.out.println("✅ Circuito " + nombre + " cerrado: eBay responde de nuevo");
+        }
+        estado = Estado.CLOSED;
+        fallosSeguidos = 0;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void fallo() {
+        fallosSeguidos++;
+        pruebaEnCurso = false;
+
+        if (estado == Estado.HALF_OPEN || (estado == Estado.CLOSED && fallosSeguidos >= umbralFallos)) {
+            estado = Estado.OPEN;
+            abiertoDesde = System.currentTimeMillis();
+            ErrorHandler.logWarning("⚡ Circuito " + nombre + " abierto tras " + fallosSeguidos
+                    + " fallos; se rechazan peticiones por " + tiempoAbiertoMillis / 1000 + " s");
+        }
+    }
+
+    /**
+     * La petición autorizada no llegó al servidor (por ejemplo, sin cuota):
+     * no cuenta como éxito ni como fallo.
+     */
+    public synchronized void abandonar() {
+        pruebaEnCurso = false;
+    }
+
+    /**
+     * Registra el resultado según el código HTTP recibido.
+     */
+    public void registrar(int statusCode) {
+        if (statusCode >= 500 || statusCode == 429) {
+            fallo();
+        } else {
+            exito();
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+}
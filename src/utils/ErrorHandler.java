@@ -9,6 +9,12 @@ import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.sql.SQLException;
 import java.sql.SQLTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * 🛡️ Sistema centralizado de manejo de errores
@@ -49,6 +55,11 @@ public class ErrorHandler {
         String exceptionType = e.getClass().getSimpleName();
         String message = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
 
+        // ⚡ Circuito abierto: eBay viene fallando y no se intentó la petición
+        if (e instanceof CircuitBreaker.CircuitOpenException) {
+            return "eBay no está respondiendo. Se volverá a intentar en unos segundos.";
+        }
+
         // 🔴 Sin conexión a internet
         if (e instanceof UnknownHostException || e instanceof ConnectException) {
             return "Sin conexión a internet. Verifica tu conexión y vuelve a intentar.";
@@ -347,6 +358,9 @@ public class ErrorHandler {
     // 🔄 RETRY AUTOMÁTICO
     // ═══════════════════════════════════════════════════════
 
+    private static final long BACKOFF_BASE_MS = 1000;
+    private static final long BACKOFF_MAX_MS = 10000;
+
     /**
      * Reintenta una operación automáticamente
      */
@@ -367,10 +381,12 @@ public class ErrorHandler {
                 log.warn("Intento {} de {} falló para: {}",
                         attempt, maxRetries, operationName);
 
+                if (!isRetryable(e)) {
+                    break;
+                }
                 if (attempt < maxRetries) {
-                    // Esperar antes del siguiente intento (backoff exponencial)
-                    long waitTime = (long) Math.pow(2, attempt) * 1000;
-                    Thread.sleep(Math.min(waitTime, 10000)); // máx 10 segundos
+                    // Esperar antes del siguiente intento (backoff exponencial con jitter)
+                    Thread.sleep(backoffWithJitter(attempt));
                 }
             }
         }
@@ -379,8 +395,97 @@ public class ErrorHandler {
         throw lastException;
     }
 
+    /**
+     * Versión asíncrona de {@link #retryOperation}: la espera entre intentos se programa
+     * en un temporizador, sin dejar ningún hilo dormido durante el backoff.
+     * Con el circuito abierto falla al instante.
+     */
+    public static <T> CompletableFuture<T> retryOperationAsync(
+            AsyncRetryableOperation<T> operation,
+            int maxRetries,
+            String operationName
+    ) {
+        return retryOperationAsync(operation, maxRetries, operationName, e -> true);
+    }
+
+    /**
+     * Igual que {@link #retryOperationAsync(AsyncRetryableOperation, int, String)}, pero quien
+     * llama decide además qué errores no vale la pena reintentar (p. ej. cuota agotada).
+     */
+    public static <T> CompletableFuture<T> retryOperationAsync(
+            AsyncRetryableOperation<T> operation,
+            int maxRetries,
+            String operationName,
+            Predicate<Throwable> reintentable
+    ) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        attemptAsync(operation, 1, maxRetries, operationName, reintentable, resultado);
+        return resultado;
+    }
+
+    private static <T> void attemptAsync(
+            AsyncRetryableOperation<T> operation,
+            int attempt,
+            int maxRetries,
+            String operationName,
+            Predicate<Throwable> reintentable,
+            CompletableFuture<T> resultado
+    ) {
+        CompletableFuture<T> intento;
+        try {
+            intento = operation.execute();
+        } catch (Exception e) {
+            intento = CompletableFuture.failedFuture(e);
+        }
+
+        intento.whenComplete((valor, error) -> {
+            if (error == null) {
+                resultado.complete(valor);
+                return;
+            }
+
+            Throwable causa = unwrap(error);
+            log.warn("Intento {} de {} falló para: {}", attempt, maxRetries, operationName);
+
+            if (attempt >= maxRetries || !isRetryable(causa) || !reintentable.test(causa)) {
+                resultado.completeExceptionally(causa);
+                return;
+            }
+
+            CompletableFuture.delayedExecutor(backoffWithJitter(attempt), TimeUnit.MILLISECONDS)
+                    .execute(() -> attemptAsync(operation, attempt + 1, maxRetries, operationName, reintentable, resultado));
+        });
+    }
+
+    /**
+     * Backoff exponencial con "full jitter": un valor al azar entre 0 y el tope del intento,
+     * para que los clientes que fallaron juntos no reintenten todos a la vez.
+     */
+    private static long backoffWithJitter(int attempt) {
+        long tope = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(attempt, 10));
+        return ThreadLocalRandom.current().nextLong(tope + 1);
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return !(e instanceof CircuitBreaker.CircuitOpenException);
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        Throwable actual = t;
+        while ((actual instanceof CompletionException || actual instanceof ExecutionException)
+                && actual.getCause() != null) {
+            actual = actual.getCause();
+        }
+        return actual;
+    }
+
     @FunctionalInterface
     public interface RetryableOperation<T> {
         T execute() throws Exception;
     }
+
+    @FunctionalInterface
+    public interface AsyncRetryableOperation<T> {
+        CompletableFuture<T> execute() throws Exception;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package utils;
+
+/**
+ * Contador aproximado de popularidad de claves (Count-Min con contadores de 4 bits).
+ *
+ * Cada clave incrementa 4 contadores elegidos por hash; su frecuencia es el mínimo de
+ * ellos. Cuando se llevan registrados {@code 10 × capacidad} accesos todos los contadores
+ * se dividen a la mitad, así que la popularidad pasada se olvida con el tiempo.
+ *
+ * No es thread-safe: {@link BoundedCache} lo usa siempre bajo su lock.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEMILLAS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long MASCARA_RESET = 0x7777777777777777L;
+    private static final long MASCARA_UNO = 0x1111111111111111L;
+    private static final int MAXIMO = 15;
+
+    // Cada long guarda 16 contadores de 4 bits
+    private final long[] tabla;
+    private final int mascaraTabla;
+    private final int tamanoMuestra;
+    private int muestra;
+
+    FrequencySketch(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(16, Math.min(capacidad, 1 << 24)) - 1) << 1;
+        this.tabla = new long[tamano];
+        this.mascaraTabla = tamano - 1;
+        this.tamanoMuestra = 10 * tamano;
+    }
+
+    /**
+     * Frecuencia estimada de la clave (0 a 15).
+     */
+    int frecuencia(Object clave) {
+        int hash = dispersar(clave.hashCode());
+        int inicio = (hash & 3) << 2;
+        int frecuencia = MAXIMO;
+        for (int i = 0; i < 4; i++) {
+            int indice = indice(hash, i);
+            int cuenta = (int) ((tabla[indice] >>> ((inicio + i) << 2)) & 0xfL);
+            frecuencia = Math.min(frecuencia, cuenta);
+        }
+        return frecuencia;
+    }
+
+    /**
+     * Registra un acceso a la clave.
+     */
+    void incrementar(Object clave) {
+        int hash = dispersar(clave.hashCode());
+        int inicio = (hash & 3) << 2;
+
+        boolean incrementado = false;
+        for (int i = 0; i < 4; i++) {
+            incrementado |= incrementarEn(indice(hash, i), inicio + i);
+        }
+
+        if (incrementado && ++muestra >= tamanoMuestra) {
+            envejecer();
+        }
+    }
+
+    private boolean incrementarEn(int i, int j) {
+        int desplazamiento = j << 2;
+        long mascara = 0xfL << desplazamiento;
+        if ((tabla[i] & mascara) != mascara) {
+            tabla[i] += 1L << desplazamiento;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Divide todos los contadores a la mitad.
+     */
+    private void envejecer() {
+        int impares = 0;
+        for (int i = 0; i < tabla.length; i++) {
+            impares += Long.bitCount(tabla[i] & MASCARA_UNO);
+            tabla[i] = (tabla[i] >>> 1) & MASCARA_RESET;
+        }
+        muestra = (muestra >>> 1) - (impares >>> 2);
+    }
+
+    private int indice(int hash, int i) {
+        long h = (hash + SEMILLAS[i]) * SEMILLAS[i];
+        h += h >>> 32;
+        return ((int) h) & mascaraTabla;
+    }
+
+    private static int dispersar(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
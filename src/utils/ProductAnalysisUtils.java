@@ -1,17 +1,19 @@
 package utils;
 
-import api.conect_API_eBay;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
+import api.MarketplaceProviders;
+import api.SearchFilter;
 import com.google.gson.JsonObject;
+import entities.PriceHistory;
+import entities.Producto;
 
 import java.util.ArrayList;
 import java.util.DoubleSummaryStatistics;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 /**
  * Utilidad para realizar análisis de precios de productos similares
- * obtenidos desde la API de eBay.
+ * obtenidos desde el proveedor de marketplace activo (eBay por defecto).
  *
  * @author Kevin
  */
@@ -35,10 +37,20 @@ public class ProductAnalysisUtils {
      * @throws Exception Si ocurre un error al conectar o procesar los datos.
      */
     public static JsonObject analizarMercado(String token, String keyword, int limit) throws Exception {
-        conect_API_eBay api = new conect_API_eBay();
-        JsonArray productos = api.browseProducts(token, keyword, limit,null,null,null,null);
+        List<Producto> productos;
+        try {
+            productos = MarketplaceProviders.get()
+                    .searchPage(token, keyword, 0, limit, SearchFilter.none())
+                    .join()
+                    .getItems();
+        } catch (CompletionException e) {
+            // Un fallo del proveedor se trata como "sin productos similares"
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            System.err.println("⚠️ Error al buscar productos similares para " + keyword + ": " + causa.getMessage());
+            productos = List.of();
+        }
 
-        if (productos == null || productos.size() == 0) {
+        if (productos.isEmpty()) {
             System.out.println("⚠️ No se encontraron productos similares para: " + keyword);
             JsonObject vacio = new JsonObject();
             vacio.addProperty("average", 0.0);
@@ -51,13 +63,10 @@ public class ProductAnalysisUtils {
 
         List<Double> precios = new ArrayList<>();
 
-        for (JsonElement elem : productos) {
-            JsonObject prod = elem.getAsJsonObject();
-            if (prod.has("price")) {
-                try {
-                    double price = Double.parseDouble(prod.get("price").getAsString());
-                    if (price > 0) precios.add(price);
-                } catch (Exception ignored) {}
+        for (Producto prod : productos) {
+            PriceHistory precio = prod.getPriceHistory();
+            if (precio != null && precio.getPrice() != null && precio.getPrice() > 0) {
+                precios.add(precio.getPrice());
             }
         }
 
@@ -0,0 +1,228 @@
+package utils;
+
+import api.ItemSummary;
+import api.MarketplaceProviders;
+import api.OldestListing;
+import dao.SellerDAO;
+import entities.SellerCategoryActivity;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 🕰️ Desde cuándo publica cada vendedor en una categoría: la fecha de su publicación
+ * más antigua allí, por (username, categoría).
+ *
+ * No es la fecha de alta de la cuenta (la Browse API no la expone) y depende de la
+ * categoría, por eso no se guarda en {@code Seller.createdAt} sino en
+ * {@link SellerCategoryActivity}. Se busca en memoria, después en la BD y por último en
+ * la API; las consultas simultáneas del mismo par comparten una sola llamada. Lo que
+ * trae la API se guarda por lotes, no una escritura por vendedor.
+ */
+public final class SellerAgeStore {
+
+    /**
+     * Publicación más antigua del vendedor en la categoría.
+     *
+     * @param acotado true si el vendedor tiene más publicaciones de las que la API deja
+     *                recorrer: puede publicar en la categoría desde antes
+     */
+    public record Actividad(LocalDate desde, boolean acotado) {
+    }
+
+    // Vendedores sin publicaciones en la categoría (o con fecha ilegible) se recuerdan menos tiempo
+    private static final CacheRegion<String, Actividad> ACTIVIDAD =
+            CacheManager.<String, Actividad>region("seller_age", Duration.ofHours(24), 2)
+                    .withNegativeTtl(Duration.ofHours(1));
+
+    // Lo guardado en la BD se vuelve a consultar pasado este tiempo (las publicaciones viejas terminan)
+    private static final Duration VIGENCIA_BD = Duration.ofDays(30);
+
+    // Las actividades nuevas se juntan durante este tiempo y se guardan en una sola transacción
+    private static final long ESPERA_LOTE_SEGUNDOS = 5;
+
+    private static final Map<String, SellerDAO.ActividadPendiente> pendientes = new ConcurrentHashMap<>();
+    private static final AtomicBoolean loteProgramado = new AtomicBoolean();
+
+    private static final SellerDAO sellerDAO = new SellerDAO();
+
+    private SellerAgeStore() {
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔍 CONSULTA
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Publicación más antigua del vendedor en la categoría, o null si no tiene ninguna
+     * (o no se conoce la categoría: sin ella no hay búsqueda confiable).
+     *
+     * @param categoryId categoría de eBay del producto analizado
+     * @throws RuntimeException si falla la consulta a la API (ver
+     *                          {@link api.MarketplaceProvider#oldestSellerItem}); el error no se recuerda
+     */
+    public static Actividad enCategoria(String token, String username, String categoryId) {
+        if (categoryId == null || categoryId.isBlank()) {
+            return null;
+        }
+        try {
+            return ACTIVIDAD.getRefreshingAsync(clave(username, categoryId), clave -> cargar(
+                    CompletableFuture.completedFuture(token), username, categoryId.trim(), clave)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * Carga en paralelo la actividad de cada vendedor de la wishlist del usuario en la
+     * categoría de sus productos guardados. Los productos sin categoría se omiten.
+     * Un error no se recuerda: esa combinación se vuelve a consultar en el análisis.
+     */
+    public static CompletableFuture<Void> precargarWishlist(int userId) {
+        List<CompletableFuture<Actividad>> pendientes = new ArrayList<>();
+        CompletableFuture<String> token = null;
+
+        for (Object[] fila : sellerDAO.findCategoriasByWishlistUser(userId)) {
+            String username = (String) fila[0];
+            Integer categoria = (Integer) fila[1];
+            if (username == null || categoria == null || categoria <= 0) {
+                continue;
+            }
+            if (token == null) {
+                token = TokenManager.getTokenAsync();
+            }
+            CompletableFuture<String> tokenLote = token;
+            String categoryId = categoria.toString();
+            pendientes.add(ACTIVIDAD.getRefreshingAsync(clave(username, categoryId),
+                            clave -> cargar(tokenLote, username, categoryId, clave))
+                    .exceptionally(ex -> {
+                        ErrorHandler.logWarning("🕰️ No se pudo consultar la actividad de " + username
+                                + " en " + categoryId + ": " + ex.getMessage());
+                        return null;
+                    }));
+        }
+
+        if (!pendientes.isEmpty()) {
+            System.out.println("🕰️ Consultando actividad de " + pendientes.size() + " vendedores de la wishlist");
+        }
+        return CompletableFuture.allOf(pendientes.toArray(CompletableFuture<?>[]::new));
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 🔄 CARGA
+    // ═══════════════════════════════════════════════════════
+
+    private static String clave(String username, String categoryId) {
+        return username.toLowerCase(Locale.ROOT) + "|" + (categoryId != null ? categoryId.trim() : "");
+    }
+
+    // Los errores de la API se propagan: sólo una respuesta correcta y vacía marca la ausencia
+    private static CompletableFuture<Actividad> cargar(
+            CompletableFuture<String> token, String username, String categoryId, String clave) {
+        Actividad guardada = leerGuardada(username, categoryId);
+        if (guardada != null) {
+            return CompletableFuture.completedFuture(guardada);
+        }
+
+        return token
+                .thenCompose(t -> MarketplaceProviders.get().oldestSellerItem(t, username, categoryId))
+                .thenApply(masAntigua -> {
+                    Actividad actividad = desde(masAntigua);
+                    if (actividad == null) {
+                        ACTIVIDAD.markAbsent(clave);
+                    } else {
+                        guardar(clave, username, categoryId, actividad);
+                    }
+                    return actividad;
+                });
+    }
+
+    private static Actividad desde(OldestListing masAntigua) {
+        ItemSummary item = masAntigua != null ? masAntigua.item() : null;
+        LocalDate fecha = item != null ? parsear(item.itemCreationDate()) : null;
+        return fecha != null ? new Actividad(fecha, masAntigua.acotado()) : null;
+    }
+
+    /**
+     * Fecha de {@link ItemSummary#itemCreationDate()} (ISO, con o sin hora); null si falta o no se entiende.
+     */
+    private static LocalDate parsear(String texto) {
+        if (texto == null || texto.length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(texto.substring(0, 10));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 💾 PERSISTENCIA
+    // ═══════════════════════════════════════════════════════
+
+    private static Actividad leerGuardada(String username, String categoryId) {
+        Integer categoria = categoriaNumerica(categoryId);
+        if (categoria == null) {
+            return null;
+        }
+        SellerCategoryActivity fila = sellerDAO.findActividad(username, categoria);
+        if (fila == null) {
+            return null;
+        }
+        try {
+            if (LocalDate.parse(fila.getCheckedAt()).plus(VIGENCIA_BD).isBefore(LocalDate.now())) {
+                return null;
+            }
+            return new Actividad(LocalDate.parse(fila.getOldestListing()), Boolean.TRUE.equals(fila.getBounded()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void guardar(String clave, String username, String categoryId, Actividad actividad) {
+        Integer categoria = categoriaNumerica(categoryId);
+        if (categoria == null) {
+            return;
+        }
+        pendientes.put(clave, new SellerDAO.ActividadPendiente(
+                username, categoria, actividad.desde().toString(), actividad.acotado()));
+        if (loteProgramado.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(SellerAgeStore::guardarLote,
+                    CompletableFuture.delayedExecutor(ESPERA_LOTE_SEGUNDOS, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void guardarLote() {
+        // Se libera antes de leer: lo que llegue mientras se guarda programa otro lote
+        loteProgramado.set(false);
+        List<SellerDAO.ActividadPendiente> lote = new ArrayList<>();
+        for (String clave : pendientes.keySet()) {
+            SellerDAO.ActividadPendiente pendiente = pendientes.remove(clave);
+            if (pendiente != null) {
+                lote.add(pendiente);
+            }
+        }
+        if (!lote.isEmpty()) {
+            int guardadas = sellerDAO.guardarActividades(lote);
+            System.out.println("🕰️ Actividad guardada de " + guardadas + "/" + lote.size() + " vendedores");
+        }
+    }
+
+    private static Integer categoriaNumerica(String categoryId) {
+        try {
+            return Integer.valueOf(categoryId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class Sesion {
 
     public static void setTokenAPI(String token, long nuevaExpiracion) {
         tokenAPI = token;
+        tokenExpireTime = nuevaExpiracion;
     }
     public static String getTokenAPI() {
         return tokenAPI;
@@ -26,7 +27,10 @@ public class Sesion {
         return tokenExpireTime;
     }
     public static void cerrar(){
+        // Sin sesión no se sigue renovando el token en segundo plano
+        TokenManager.cancelarRenovacion();
         usuarioActual = null;
         tokenAPI = null;
+        tokenExpireTime = 0;
     }
 }
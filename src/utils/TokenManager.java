@@ -1,48 +1,282 @@
 package utils;
 
+import api.OAuthToken;
 import api.conect_API_eBay;
 import keys.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 🔑 Administra el token de aplicación de eBay.
+ *
+ * Conserva el vencimiento real, lo renueva en segundo plano unos minutos antes de que
+ * caduque y lo guarda en disco para que un reinicio dentro de su vida útil no tenga
+ * que volver a pedirlo. Si varias llamadas necesitan renovarlo a la vez, comparten
+ * una sola petición OAuth.
+ */
 public class TokenManager {
 
     private static final String CLIENT_ID = config.getProperty("CLIENT_ID");
     private static final String CLIENT_SECRET = config.getProperty("CLIENT_SECRET");
 
+    // Se renueva antes de que venza para que ninguna petición use un token caducado
+    private static final long MARGEN_RENOVACION = TimeUnit.MINUTES.toMillis(5);
+    private static final long REINTENTO_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Path ARCHIVO_TOKEN = Paths.get(System.getProperty("user.home"), ".prims", "token.properties");
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "token-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicReference<CompletableFuture<String>> renovacionEnCurso = new AtomicReference<>();
+    private static ScheduledFuture<?> proximaRenovacion;
+
+    static {
+        restaurarTokenGuardado();
+    }
+
     public static boolean isTokenExpired() {
         long now = System.currentTimeMillis();
         return now >= Sesion.getTokenExpireTime();
     }
 
-    // 🔥 ESTE MÉTODO AHORA RETORNA EL TOKEN
-    public static void refreshToken() {
+    private static boolean necesitaRenovar() {
+        return Sesion.getTokenAPI() == null
+                || System.currentTimeMillis() >= Sesion.getTokenExpireTime() - MARGEN_RENOVACION;
+    }
 
+    /**
+     * Renueva el token si no hay uno o está por vencer, esperando el resultado.
+     */
+    public static void refreshToken() {
         try {
+            refreshTokenAsync().get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("❌ Error renovando token: " + causa.getMessage(), causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("❌ Renovación de token interrumpida", e);
+        }
+    }
 
-            // SI NO hay token, O ya expiró → generar uno nuevo
-            if (Sesion.getTokenAPI() == null || isTokenExpired()) {
-
-                System.out.println("🔄 Generando nuevo token...");
+    /**
+     * Renueva el token en segundo plano si hace falta. Las llamadas concurrentes
+     * reciben el mismo futuro.
+     */
+    public static CompletableFuture<String> refreshTokenAsync() {
+        if (!necesitaRenovar()) {
+            return CompletableFuture.completedFuture(Sesion.getTokenAPI());
+        }
 
-                String nuevoToken = obtenerNuevoToken();
-                long expiration = System.currentTimeMillis() + (60 * 60 * 1000);
+        CompletableFuture<String> nueva = new CompletableFuture<>();
+        CompletableFuture<String> enCurso = renovacionEnCurso.compareAndExchange(null, nueva);
+        if (enCurso != null) {
+            return enCurso;
+        }
 
-                // ✔ Guardar token en sesión
-                Sesion.setTokenAPI(nuevoToken, expiration);
+        SCHEDULER.execute(() -> {
+            try {
+                String token = renovarAhora();
+                renovacionEnCurso.compareAndSet(nueva, null);
+                nueva.complete(token);
+            } catch (Throwable t) {
+                renovacionEnCurso.compareAndSet(nueva, null);
+                nueva.completeExceptionally(t);
+                programarReintento();
+            }
+        });
+        return nueva;
+    }
 
-                System.out.println("🔑 Token renovado correctamente.");
+    /**
+     * Token listo para usar. Si está vencido espera la renovación; si sólo está
+     * por vencer, la lanza en segundo plano y devuelve el actual.
+     */
+    public static String getToken() {
+        String actual = Sesion.getTokenAPI();
+        if (actual != null && !isTokenExpired()) {
+            if (necesitaRenovar()) {
+                refreshTokenAsync();
             }
+            return actual;
+        }
 
+        try {
+            return refreshTokenAsync().get();
         } catch (Exception e) {
-            throw new RuntimeException("❌ Error renovando token: " + e.getMessage(), e);
+            ErrorHandler.logWarning("🔑 No se pudo renovar el token: " + e.getMessage());
+            return Sesion.getTokenAPI();
+        }
+    }
+
+    /**
+     * Versión asíncrona de {@link #getToken()}: no bloquea si hay que renovarlo.
+     */
+    public static CompletableFuture<String> getTokenAsync() {
+        String actual = Sesion.getTokenAPI();
+        if (actual != null && !isTokenExpired()) {
+            if (necesitaRenovar()) {
+                refreshTokenAsync();
+            }
+            return CompletableFuture.completedFuture(actual);
         }
+        return refreshTokenAsync();
     }
 
+    private static String renovarAhora() {
+        // Otra renovación (o el archivo guardado) pudo dejar un token vigente
+        if (necesitaRenovar()) {
+            restaurarTokenGuardado();
+        }
+        if (!necesitaRenovar()) {
+            return Sesion.getTokenAPI();
+        }
+
+        System.out.println("🔄 Generando nuevo token...");
+
+        OAuthToken nuevo = obtenerNuevoToken();
+        if (nuevo == null) {
+            throw new IllegalStateException("eBay no devolvió un token de acceso");
+        }
+
+        // ✔ Guardar token en sesión con su vencimiento real
+        Sesion.setTokenAPI(nuevo.value(), nuevo.expiresAtMillis());
+        guardarToken(nuevo);
+        programarRenovacion(nuevo.expiresAtMillis());
+        sincronizarCuotas(nuevo.value());
+
+        System.out.println("🔑 Token renovado correctamente.");
+        return nuevo.value();
+    }
 
     // 🔥 Método REAL de obtener token desde eBay
-    private static String obtenerNuevoToken() throws Exception {
+    private static OAuthToken obtenerNuevoToken() {
+        return conect_API_eBay.getAccessTokenWithExpiry(CLIENT_ID, CLIENT_SECRET);
+    }
+
+    // Con cada token nuevo (cada ~2 h) se corrige la cuota local con la que informa eBay
+    private static void sincronizarCuotas(String token) {
+        if (conect_API_eBay.usaApiReal()) {
+            conect_API_eBay.sincronizarCuotasAsync(token);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ⏰ RENOVACIÓN PROGRAMADA
+    // ═══════════════════════════════════════════════════════
+
+    private static synchronized void programarRenovacion(long expiraEn) {
+        if (proximaRenovacion != null) {
+            proximaRenovacion.cancel(false);
+        }
+        long espera = Math.max(0, expiraEn - MARGEN_RENOVACION - System.currentTimeMillis());
+        proximaRenovacion = SCHEDULER.schedule(TokenManager::refreshTokenAsync, espera, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized void programarReintento() {
+        if (proximaRenovacion != null) {
+            proximaRenovacion.cancel(false);
+        }
+        proximaRenovacion = SCHEDULER.schedule(TokenManager::refreshTokenAsync, REINTENTO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancela la renovación programada (al cerrar sesión). El próximo {@link #getToken()}
+     * vuelve a pedir o restaurar el token y a programarla.
+     */
+    public static synchronized void cancelarRenovacion() {
+        if (proximaRenovacion != null) {
+            proximaRenovacion.cancel(false);
+            proximaRenovacion = null;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // 💾 PERSISTENCIA
+    // ═══════════════════════════════════════════════════════
+
+    private static void guardarToken(OAuthToken token) {
+        // Un token del servidor de pruebas no sirve contra eBay
+        if (!conect_API_eBay.usaApiReal()) {
+            return;
+        }
+
+        Properties props = new Properties();
+        props.setProperty("token", token.value());
+        props.setProperty("expiresAt", Long.toString(token.expiresAtMillis()));
+
+        try {
+            Files.createDirectories(ARCHIVO_TOKEN.getParent());
+
+            // El temporal nace ya con rw------- y reemplaza al anterior de una vez:
+            // el token nunca queda legible para otros usuarios
+            Path temporal = crearTemporalPrivado();
+            try {
+                try (OutputStream out = Files.newOutputStream(temporal)) {
+                    props.store(out, "Token de aplicación de eBay");
+                }
+                Files.move(temporal, ARCHIVO_TOKEN, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            ErrorHandler.logWarning("🔑 No se pudo guardar el token: " + e.getMessage());
+        }
+    }
 
-        conect_API_eBay api = new conect_API_eBay();
-        String token = api.getAccesToken(CLIENT_ID, CLIENT_SECRET);
+    private static Path crearTemporalPrivado() throws IOException {
+        Path directorio = ARCHIVO_TOKEN.getParent();
+        try {
+            FileAttribute<?> soloDueno = PosixFilePermissions.asFileAttribute(
+                    EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+            return Files.createTempFile(directorio, "token", ".tmp", soloDueno);
+        } catch (UnsupportedOperationException e) {
+            // Sistema de archivos sin permisos POSIX (Windows): el perfil del usuario ya es privado
+            return Files.createTempFile(directorio, "token", ".tmp");
+        }
+    }
+
+    private static void restaurarTokenGuardado() {
+        if (!conect_API_eBay.usaApiReal() || !Files.exists(ARCHIVO_TOKEN)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(ARCHIVO_TOKEN)) {
+            props.load(in);
+            String token = props.getProperty("token");
+            long expiraEn = Long.parseLong(props.getProperty("expiresAt", "0"));
 
-        return token;
+            if (token != null && System.currentTimeMillis() < expiraEn - MARGEN_RENOVACION) {
+                Sesion.setTokenAPI(token, expiraEn);
+                programarRenovacion(expiraEn);
+                sincronizarCuotas(token);
+                System.out.println("♻️ Token restaurado desde disco");
+            }
+        } catch (IOException | NumberFormatException e) {
+            ErrorHandler.logWarning("🔑 No se pudo leer el token guardado: " + e.getMessage());
+        }
     }
 }
@@ -1,12 +1,17 @@
 package utils;
 
 
-import api.conect_API_eBay;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import api.EbayMarketplace;
+import api.EbayMarketplaceProvider;
+import api.ItemDetail;
+import api.MarketplaceProvider;
+import api.MarketplaceProviders;
+import api.SearchFilter;
+import api.ShippingOption;
+import dao.MarketplaceDAO;
 import entities.*;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
@@ -15,8 +20,13 @@ import java.util.*;
 
 public class cls_browseEBAY {
 
-    private static conect_API_eBay api = new conect_API_eBay();
-    private static final Map<String, Map<String, String>> cacheAntiguedad = new HashMap<>();
+    // Resultados pedidos a eBay en cada página de una búsqueda
+    private static final int TAMANO_PAGINA = 50;
+
+    // Un marketplace lento no puede demorar la búsqueda combinada más que esto
+    private static final Duration TIMEOUT_POR_MERCADO = Duration.ofSeconds(8);
+
+    private static volatile List<EbayMarketplace> mercados;
 
     public cls_browseEBAY() {
     }
@@ -24,180 +34,101 @@ public class cls_browseEBAY {
     public List<Producto> obtenerProductos(
             String token,
             String palabra,
-            Double precioMin,
-            Double precioMax,
-            String condicion,
-            String ordenar
+            SearchFilter filtro
     )  throws Exception {
 
+        // La API ya devuelve cada Producto armado (vendedor, categoría, condición, precio e imágenes)
+        return MarketplaceProviders.get()
+                .searchPage(token, palabra, 0, TAMANO_PAGINA, filtro)
+                .join()
+                .getItems();
+    }
 
-        List<Producto> listaProductos = new ArrayList<>();
-
-        JsonArray productos = conect_API_eBay.browseProducts(
-                token,
-                palabra,
-                50,
-                precioMin,
-                precioMax,
-                condicion,
-                ordenar
-        );
-
-        if (productos != null) {
-            for (JsonElement elem : productos) {
-                JsonObject producto = elem.getAsJsonObject();
-
-                // =========================
-                // DATOS BASE DEL PRODUCTO
-                // =========================
-                String idProducto = producto.has("itemId")
-                        ? producto.get("itemId").getAsString().replace("|", "%7C")
-                        : null;
-                if (idProducto == null) continue;
-
-                // ================
-                // VENDEDOR
-                // ================
-                Seller vendedor = new Seller();
-                if (producto.has("seller")) {
-                    JsonObject seller = producto.getAsJsonObject("seller");
-                    vendedor.setUsername(seller.has("username") ? seller.get("username").getAsString() : "Desconocido");
-                    vendedor.setFeedbackScore(seller.has("feedbackScore") ? seller.get("feedbackScore").getAsInt() : 0);
-                    vendedor.setFeedbackPorcentage(seller.has("feedbackPercentage")
-                            ? Double.parseDouble(seller.get("feedbackPercentage").getAsString()) : 0.0);
-                }
+    /**
+     * 🌊 Abre una búsqueda paginada: los productos se piden a eBay por páginas
+     * a medida que se consume el iterador (con una página de prefetch).
+     */
+    public Iterator<Producto> abrirBusqueda(
+            String token,
+            String palabra,
+            SearchFilter filtro
+    ) {
+        // Con varios marketplaces configurados se paginan todos a la vez y se combinan.
+        // Consulta la BD la primera vez: llamar fuera del hilo de JavaFX
+        MarketplaceProvider proveedor = MarketplaceProviders.get();
+        List<EbayMarketplace> configurados = mercadosConfigurados();
+        if (configurados.size() > 1 && proveedor instanceof EbayMarketplaceProvider ebay) {
+            return ebay.searchMarketplaces(
+                            token,
+                            palabra,
+                            TAMANO_PAGINA,
+                            filtro,
+                            configurados,
+                            TIMEOUT_POR_MERCADO
+                    )
+                    .iterator();
+        }
 
-                // ==================
-                // CATEGORÍA
-                // ==================
-                CategoryProduct categoria = new CategoryProduct();
-                if (producto.has("categories")) {
-                    JsonArray categorias = producto.getAsJsonArray("categories");
-                    if (!categorias.isEmpty()) {
-                        JsonObject cat = categorias.get(0).getAsJsonObject();
-                        categoria.setIdCategory(cat.has("categoryId") ? Integer.parseInt(cat.get("categoryId").getAsString()) : 0);
-                        categoria.setCategoryPath(cat.has("categoryName") ? cat.get("categoryName").getAsString() : "Sin categoría");
-                    }
-                } else {
-                    categoria.setIdCategory(0);
-                    categoria.setCategoryPath("Sin categoría");
-                }
+        return proveedor.searchStream(
+                        token,
+                        palabra,
+                        TAMANO_PAGINA,
+                        filtro
+                )
+                .iterator();
+    }
 
-                // ==================
-                // CONDICIÓN
-                // ==================
-                ConditionProduct conditionEntity = new ConditionProduct();
-                if (producto.has("condition") && producto.get("condition").isJsonObject()) {
-                    JsonObject cond = producto.getAsJsonObject("condition");
-                    conditionEntity.setIdCondition(cond.has("conditionId") ? Integer.parseInt(cond.get("conditionId").getAsString()) : 0);
-                    conditionEntity.setConditionPath(cond.has("condition") ? cond.get("condition").getAsString() : "Sin especificar");
-                } else {
-                    conditionEntity.setIdCondition(0);
-                    conditionEntity.setConditionPath("Sin especificar");
-                }
+    /**
+     * 🌍 Marketplaces donde buscar: los de {@code -Dprims.marketplaces=US,GB,DE} si se indican,
+     * si no los registrados en la tabla de marketplaces (por countryCode). Por defecto, sólo EBAY_US.
+     */
+    public static List<EbayMarketplace> mercadosConfigurados() {
+        List<EbayMarketplace> actuales = mercados;
+        if (actuales != null) {
+            return actuales;
+        }
 
-                // ===========================
-                // PRODUCTO PRINCIPAL
-                // ===========================
-                boolean topRated = producto.has("topRatedBuyingExperience")
-                        && producto.get("topRatedBuyingExperience").getAsBoolean();
-
-                String url = producto.has("itemWebUrl") ? producto.get("itemWebUrl").getAsString() : "";
-                String dateCreated = producto.has("itemCreationDate")
-                        ? producto.get("itemCreationDate").getAsString().substring(0, 10)
-                        : LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-                byte ratedValue = (byte) (topRated ? 1 : 0);
-
-                Producto nuevo = new Producto(
-                        idProducto,
-                        producto.has("title") ? producto.get("title").getAsString() : "Sin título",
-                        vendedor,
-                        categoria,
-                        conditionEntity,
-                        ratedValue,
-                        url,
-                        dateCreated
-                );
-
-                // =====================
-                // PRECIO
-                // =====================
-                if (producto.has("price")) {
-                    JsonElement priceElement = producto.get("price");
-
-                    double value = 0.0;
-                    String currency = "USD";
-
-                    if (priceElement.isJsonObject()) {
-                        JsonObject priceObj = priceElement.getAsJsonObject();
-                        if (priceObj.has("value")) value = priceObj.get("value").getAsDouble();
-                        if (priceObj.has("currency")) currency = priceObj.get("currency").getAsString();
-                    } else if (priceElement.isJsonPrimitive()) {
-                        try {
-                            value = priceElement.getAsDouble();
-                        } catch (Exception ignored) {}
-                    }
+        Set<EbayMarketplace> encontrados = new LinkedHashSet<>();
+        String propiedad = System.getProperty("prims.marketplaces");
 
-                    if (value > 0.0) {
-                        // Asignamos el PriceHistory al producto
-                        PriceHistory priceH = new PriceHistory(idProducto, value, currency, dateCreated);
-                        nuevo.setPriceHistory(priceH);
-                    }
+        if (propiedad != null && !propiedad.isBlank()) {
+            for (String codigo : propiedad.split(",")) {
+                EbayMarketplace m = EbayMarketplace.fromCountryCode(codigo);
+                if (m != null) {
+                    encontrados.add(m);
                 }
-
-
-                // =====================
-                // IMÁGENES
-                // =====================
-                // =====================
-                // IMÁGENES (todas las URLs)
-                // =====================
-                List<String> urls = new ArrayList<>();
-
-                if (producto.has("images") && producto.get("images").isJsonArray()) {
-                    JsonArray imagesArray = producto.getAsJsonArray("images");
-                    for (JsonElement imgElem : imagesArray) {
-                        if (imgElem.isJsonPrimitive()) {
-                            String urlImg = imgElem.getAsString();
-                            if (!urlImg.equalsIgnoreCase("Sin imágenes disponibles") && !urlImg.isBlank()) {
-                                urls.add(urlImg);
-                            }
-                        }
+            }
+        } else {
+            try {
+                for (Marketplace registro : new MarketplaceDAO().findAll()) {
+                    EbayMarketplace m = EbayMarketplace.fromMarketplace(registro);
+                    if (m != null) {
+                        encontrados.add(m);
                     }
                 }
-
-                // Si no tiene imágenes, usa una por defecto
-                if (urls.isEmpty()) {
-                    urls.add(getClass().getResource("/interfaz/recursos/imagen-rota.png").toExternalForm());
-                }
-
-// ✅ No tocar `urlProduct`, ya viene desde itemWebUrl
-// Guarda solo las imágenes asociadas en memoria
-                nuevo.setImageUrls(urls);
-
-
-                // =====================
-                // RELACIONAR Y AGREGAR
-                // =====================
-                listaProductos.add(nuevo);
+            } catch (Exception e) {
+                System.err.println("⚠️ No se pudieron leer los marketplaces: " + e.getMessage());
             }
         }
-        return listaProductos;
+
+        if (encontrados.isEmpty()) {
+            encontrados.add(EbayMarketplace.US);
+        }
+
+        mercados = List.copyOf(encontrados);
+        return mercados;
     }
 
     public void mtd_informationAditional(String token, Producto producto) {
         try {
-            JsonArray detallesArray = conect_API_eBay.aditional_info_pro(token, producto.getItemId());
-            if (detallesArray == null || detallesArray.isEmpty()) return;
-
-            JsonObject detalles = detallesArray.get(0).getAsJsonObject();
+            ItemDetail detalles = MarketplaceProviders.get().itemDetail(token, producto.getItemId()).join();
+            if (detalles == null) return;
 
             // ============================
             // 1️⃣ Descripción corta
             // ============================
-            if (detalles.has("shortDescription") && !detalles.get("shortDescription").isJsonNull()) {
-                producto.setShortDescription(detalles.get("shortDescription").getAsString());
+            if (detalles.shortDescription() != null) {
+                producto.setShortDescription(detalles.shortDescription());
                 System.out.println("📝 Descripción cargada: " + producto.getShortDescription());
 
             }
@@ -207,26 +138,15 @@ public class cls_browseEBAY {
             // ============================
             List<AtributtesProduct> atributos = new ArrayList<>();
 
-            if (detalles.has("localizedAspects") && detalles.get("localizedAspects").isJsonArray()) {
-                JsonArray aspects = detalles.getAsJsonArray("localizedAspects");
-
-                for (JsonElement elem : aspects) {
-                    if (!elem.isJsonObject()) continue;
+            for (ItemDetail.Aspect aspect : detalles.aspects()) {
+                String name = aspect.name() != null ? aspect.name().trim() : "";
+                if (name.isEmpty()) continue;
 
-                    JsonObject attr = elem.getAsJsonObject();
-                    String name = attr.has("name") ? attr.get("name").getAsString().trim() : "";
-                    if (name.isEmpty()) continue;
+                String value = aspect.value();
+                value = value == null || value.trim().isEmpty() ? null : value.trim();
 
-                    String value = null;
-                    if (attr.has("value")) {
-                        JsonElement v = attr.get("value");
-                        value = v.isJsonPrimitive() ? v.getAsString() : v.toString();
-                        value = value.trim().isEmpty() ? null : value;
-                    }
-
-                    AtributtesProduct atributo = new AtributtesProduct(producto, name, value);
-                    atributos.add(atributo);
-                }
+                AtributtesProduct atributo = new AtributtesProduct(producto, name, value);
+                atributos.add(atributo);
             }
             // 🔹 Guardar los atributos en el producto (para mostrarlos en ProductController)
             producto.setAtributos(atributos);
@@ -241,24 +161,9 @@ public class cls_browseEBAY {
             // ============================
             List<ShippingProduct> envios = new ArrayList<>();
 
-            if (detalles.has("shippingOptions") && detalles.get("shippingOptions").isJsonArray()) {
-                JsonArray shippingArray = detalles.getAsJsonArray("shippingOptions");
-
-                for (JsonElement elem : shippingArray) {
-                    JsonObject ship = elem.getAsJsonObject();
-
-                    String type = ship.has("type") ? ship.get("type").getAsString() : "N/A";
-                    String carrier = ship.has("shippingCarrierCode") ? ship.get("shippingCarrierCode").getAsString() : "N/A";
-                    double cost = 0.0;
-
-                    if (ship.has("shippingCost")) {
-                        JsonObject costObj = ship.getAsJsonObject("shippingCost");
-                        cost = costObj.has("value") ? costObj.get("value").getAsDouble() : 0.0;
-                    }
-
-                    ShippingProduct envio = new ShippingProduct(producto, type, carrier, cost);
-                    envios.add(envio);
-                }
+            for (ShippingOption ship : detalles.shippingOptions()) {
+                ShippingProduct envio = new ShippingProduct(producto, ship.type(), ship.carrier(), ship.costValue());
+                envios.add(envio);
             }
 
             producto.setEnvios(envios);
@@ -266,38 +171,28 @@ public class cls_browseEBAY {
             // ============================
             // 4️⃣ Política de devoluciones
             // ============================
-            if (detalles.has("returnsAccepted")) {
-                boolean returnsAccepted = detalles.get("returnsAccepted").getAsBoolean();
-                producto.setReturns(returnsAccepted ? (byte) 1 : (byte) 0);
-            }
+            producto.setReturns(detalles.returnsAccepted() ? (byte) 1 : (byte) 0);
 
             // ============================
             // 5️⃣ Cupones disponibles
             // ============================
             List<CouponPro> cupones = new ArrayList<>();
 
-            if (detalles.has("availableCoupons") && detalles.get("availableCoupons").isJsonArray()) {
-                JsonArray couponsArray = detalles.getAsJsonArray("availableCoupons");
-
-                for (JsonElement elem : couponsArray) {
-                    JsonObject cpn = elem.getAsJsonObject();
-
-                    String code = cpn.has("redemptionCode") ? cpn.get("redemptionCode").getAsString() : "N/A";
-                    String expiration = cpn.has("expirationDate") ? cpn.get("expirationDate").getAsString() : "N/A";
+            for (ItemDetail.Coupon cpn : detalles.coupons()) {
+                String expiration = cpn.expirationDate() != null ? cpn.expirationDate() : "N/A";
 
-                    CouponPro cupon = new CouponPro(producto.getItemId(), code, expiration);
-                    cupones.add(cupon);
+                CouponPro cupon = new CouponPro(producto.getItemId(), cpn.redemptionCode(), expiration);
+                cupones.add(cupon);
 
-                    // Solo enlazamos el primero directamente si aplica
-                    producto.setIdCoupon(cupon);
-                }
+                // Solo enlazamos el primero directamente si aplica
+                producto.setIdCoupon(cupon);
             }
 
             // ============================
             // 6️⃣ Disponibilidad
             // ============================
-            if (detalles.has("status")) {
-                String status = detalles.get("status").getAsString();
+            if (detalles.availabilityStatus() != null) {
+                String status = detalles.availabilityStatus();
                 producto.setAvailable(status.equalsIgnoreCase("IN_STOCK") ? (byte) 1 : (byte) 0);
             }
 
@@ -311,8 +206,17 @@ public class cls_browseEBAY {
     }
 
     public static Map<String, String> calcularAccountAge(String token, String sellerUsername) {
+        return calcularAccountAge(token, sellerUsername, null);
+    }
+
+    /**
+     * Desde cuándo publica el vendedor en la categoría, según su publicación más antigua
+     * allí (ver {@link SellerAgeStore}). No es la antigüedad de la cuenta.
+     *
+     * @param categoryId categoría de eBay del producto analizado; null si no se conoce
+     */
+    public static Map<String, String> calcularAccountAge(String token, String sellerUsername, String categoryId) {
         Map<String, String> resultado = new HashMap<>();
-        conect_API_eBay api = new conect_API_eBay();
 
         try {
             if (sellerUsername == null || sellerUsername.trim().isEmpty()) {
@@ -322,62 +226,37 @@ public class cls_browseEBAY {
                 return resultado;
             }
 
-            // 🧠 Revisar si ya está cacheado
-            if (cacheAntiguedad.containsKey(sellerUsername)) {
-                System.out.println("♻️ Antigüedad obtenida desde caché para: " + sellerUsername);
-                return cacheAntiguedad.get(sellerUsername);
-            }
-
-            // 🔹 Llamada a la API: se usa "q" para evitar error 400
-            JsonArray productos = api.buscarProductosPorVendedor(token, sellerUsername, 50);
-
-            if (productos == null || productos.size() == 0) {
-                System.out.println("📭 El vendedor " + sellerUsername + " no tiene productos activos.");
+            if (categoryId == null) {
                 resultado.put("fecha", "N/A");
-                resultado.put("antiguedad", "Sin publicaciones recientes");
-                cacheAntiguedad.put(sellerUsername, resultado);
+                resultado.put("antiguedad", "Categoría desconocida");
                 return resultado;
             }
 
-            DateTimeFormatter fmt = DateTimeFormatter.ISO_DATE_TIME;
-
-            // Buscar la fecha más antigua
-            Optional<LocalDate> fechaMasAntigua = productos.asList().stream()
-                    .map(e -> {
-                        JsonObject obj = e.getAsJsonObject();
-                        if (obj.has("itemCreationDate")) {
-                            try {
-                                return LocalDate.parse(obj.get("itemCreationDate").getAsString(), fmt);
-                            } catch (Exception ex) {
-                                return null;
-                            }
-                        }
-                        return null;
-                    })
-                    .filter(Objects::nonNull)
-                    .min(LocalDate::compareTo);
-
-            if (fechaMasAntigua.isEmpty()) {
-                resultado.put("fecha", "Desconocida");
-                resultado.put("antiguedad", "No disponible");
-                cacheAntiguedad.put(sellerUsername, resultado);
+            // 🔹 Memoria, luego la BD y sólo al final la publicación más antigua en la API (un fallo cae en el catch)
+            SellerAgeStore.Actividad actividad = SellerAgeStore.enCategoria(token, sellerUsername, categoryId);
+
+            if (actividad == null) {
+                System.out.println("📭 El vendedor " + sellerUsername + " no tiene publicaciones activas en la categoría " + categoryId);
+                resultado.put("fecha", "N/A");
+                resultado.put("antiguedad", "Sin publicaciones en la categoría");
                 return resultado;
             }
+            LocalDate inicio = actividad.desde();
 
-            LocalDate inicio = fechaMasAntigua.get();
             LocalDate hoy = LocalDate.now();
             long años = ChronoUnit.YEARS.between(inicio, hoy);
             long meses = ChronoUnit.MONTHS.between(inicio, hoy) % 12;
 
             String fechaFormateada = inicio.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            String textoAntiguedad = (años > 0 ? años + " años " : "") + meses + " meses";
+            // Con más de 10 000 publicaciones la más antigua no es alcanzable: "o más"
+            String textoAntiguedad = (años > 0 ? años + " años " : "") + meses + " meses"
+                    + (actividad.acotado() ? " o más" : "") + " en la categoría";
 
             resultado.put("fecha", fechaFormateada);
             resultado.put("antiguedad", textoAntiguedad);
-            cacheAntiguedad.put(sellerUsername, resultado);
 
-            System.out.println("📊 Antigüedad calculada para " + sellerUsername +
-                    ": " + textoAntiguedad + " (desde " + fechaFormateada + ")");
+            System.out.println("📊 Actividad de " + sellerUsername + ": " + textoAntiguedad
+                    + " (desde " + fechaFormateada + ")");
 
         } catch (Exception e) {
             System.err.println("❌ Error al calcular antigüedad del vendedor " + sellerUsername);